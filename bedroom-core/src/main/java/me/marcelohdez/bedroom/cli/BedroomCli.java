@@ -0,0 +1,173 @@
+package me.marcelohdez.bedroom.cli;
+
+import me.marcelohdez.bedroom.history.HistoryStore;
+import me.marcelohdez.bedroom.history.QuantileSketch;
+import me.marcelohdez.bedroom.history.ShiftHistory;
+import me.marcelohdez.bedroom.ingest.OrderBatch;
+import me.marcelohdez.bedroom.prefs.FilePreferencesFactory;
+import me.marcelohdez.bedroom.shift.ShiftSession;
+import me.marcelohdez.bedroom.shift.ShiftStats;
+import me.marcelohdez.bedroom.util.Time;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Headless Bedroom, for machines without a display. It shares its shift with the window through the same
+ * user preferences the window saves for crash recovery, so a shift may be clocked into from either one.
+ */
+public final class BedroomCli {
+
+    private static final Preferences userPrefs = new FilePreferencesFactory().userRoot();
+    private static final String USAGE = """
+            Usage: bedroom-cli <command>
+              clock-in <HH:mm> [target]  Clock in now until the given time, with an hourly target
+              orders <+N|-N|set N>       Add, remove or set orders
+              stats                      Show the current shift's stats
+              clock-out                  Clock out now, saving this shift to history""";
+
+    private static final ShiftSession session = new ShiftSession();
+
+    public static void main(String[] args) {
+
+        if (args.length == 0) exit(2, USAGE);
+
+        switch (args[0]) {
+            case "clock-in" -> clockIn(args);
+            case "orders" -> orders(args);
+            case "stats" -> stats();
+            case "clock-out" -> clockOut();
+            default -> exit(2, USAGE);
+        }
+
+        try {
+            userPrefs.flush();
+        } catch (BackingStoreException e) {
+            exit(1, "Unable to save shift: " + e.getMessage());
+        }
+
+    }
+
+    private static void clockIn(String[] args) {
+        if (args.length < 2) exit(2, USAGE);
+
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime end;
+        int target = userPrefs.getInt("defaultTarget", 9);
+        try {
+            end = start.with(LocalTime.parse(args[1]));
+            if (args.length > 2) target = Integer.parseInt(args[2]);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            exit(2, USAGE);
+            return;
+        }
+        if (!end.isAfter(start)) end = end.plusDays(1); // Clock out time is tomorrow, for overnight shifts
+
+        userPrefs.put("shiftStart", start.toString());
+        userPrefs.put("shiftEnd", end.toString());
+        userPrefs.putInt("target", target);
+        userPrefs.putInt("orders", 0);
+
+        System.out.println("Clocked in until $t, target of $n/hr"
+                .replace("$t", Time.makeTime12Hour(end.toLocalTime()))
+                .replace("$n", String.valueOf(target)));
+    }
+
+    private static void orders(String[] args) {
+        OrderBatch batch = new OrderBatch();
+        if (args.length < 2 || !batch.add(String.join(" ", args).substring(args[0].length() + 1)))
+            exit(2, USAGE);
+
+        loadShift();
+        if (!batch.applyTo(session)) exit(1, "Orders can only be changed while clocked in and not on break.");
+
+        userPrefs.putInt("orders", (int) session.getOrders());
+        System.out.println("Orders: " + session.getOrders());
+    }
+
+    private static void stats() {
+        loadShift();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!session.getPlan().clockInPassed(now)) {
+            System.out.println("Time until clocked in: "
+                    + Time.secondsToTime(now.until(session.getPlan().clockIn(), ChronoUnit.SECONDS)));
+            return;
+        }
+
+        ShiftStats stats = ShiftStats.of(session.snapshot(), now);
+        System.out.println("""
+                Time: $t ($d%)
+                Orders: $o ($pH)
+                Needed: $n, $l until target of $g/hr"""
+                .replace("$t", Time.secondsToTime(stats.secondsWorked()))
+                .replace("$d", new DecimalFormat("#.0").format(Math.min(stats.percentDone(), 100f)))
+                .replace("$o", String.valueOf(stats.orders()))
+                .replace("$pH", stats.ordersPerHourText())
+                .replace("$n", String.valueOf(stats.ordersNeeded()))
+                .replace("$l", String.valueOf(stats.ordersLeftForTarget()))
+                .replace("$g", String.valueOf(stats.target())));
+    }
+
+    private static void clockOut() {
+        loadShift();
+        LocalDateTime now = LocalDateTime.now();
+        if (!session.getPlan().clockInPassed(now)) exit(1, "Not clocked in yet.");
+
+        HistoryStore store = new HistoryStore(HistoryStore.folderFrom(userPrefs));
+        try {
+            ShiftHistory history = store.load();
+            float ordersPerHour = ShiftStats.roundTwoDecimals(
+                    session.getOrders() * 3600f / session.getPlan().secondsWorkedBy(now));
+            QuantileSketch sketch = store.loadSketch(history);
+            history.add(session.getPlan().clockIn(), ordersPerHour);
+            sketch.add(ordersPerHour);
+            store.save(history);
+            store.saveSketch(sketch);
+
+            System.out.println("Clocked out at $o/hr, saved to $f"
+                    .replace("$o", Float.isNaN(ordersPerHour) ? "-" : ShiftStats.formatTwoDecimals(ordersPerHour))
+                    .replace("$f", store.getFile().toString()));
+        } catch (IOException | NumberFormatException e) {
+            exit(1, "Unable to save shift history: " + e.getMessage());
+        }
+
+        userPrefs.put("shiftEnd", now.toString()); // Save clocked out time
+    }
+
+    /** Loads the shift saved in preferences into our session, exiting if we are not in it */
+    private static void loadShift() {
+        try {
+            LocalDateTime start = LocalDateTime.parse(userPrefs.get("shiftStart", ""));
+            LocalDateTime end = LocalDateTime.parse(userPrefs.get("shiftEnd", ""));
+            if (!LocalDateTime.now().isBefore(end)) exit(1, "No shift in progress, use clock-in first.");
+
+            session.setShift(start, end);
+            session.setTarget(userPrefs.getInt("target", userPrefs.getInt("defaultTarget", 9)));
+            session.setOrders(userPrefs.getInt("orders", 0), false);
+        } catch (DateTimeParseException e) {
+            exit(1, "No shift in progress, use clock-in first.");
+        }
+
+        try { // Only use the last saved break if it is inside our shift, like the window does
+            LocalDateTime breakStart = LocalDateTime.parse(userPrefs.get("breakStart", ""));
+            LocalDateTime breakEnd = LocalDateTime.parse(userPrefs.get("breakEnd", ""));
+            if (session.getPlan().clockIn().isBefore(breakStart) && session.getPlan().clockOut().isAfter(breakEnd))
+                session.setBreak(breakStart, breakEnd);
+        } catch (DateTimeParseException e) {
+            // No break was chosen
+        }
+    }
+
+    private static void exit(int status, String message) {
+        System.err.println(message);
+        System.exit(status);
+    }
+
+}
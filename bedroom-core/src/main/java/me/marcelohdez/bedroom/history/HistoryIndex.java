@@ -0,0 +1,129 @@
+package me.marcelohdez.bedroom.history;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Shift history laid out for queries, one entry per day (the average of its shifts, as the chart shows
+ * them), so results count days rather than shifts: dates are kept sorted as epoch days so date ranges are
+ * found by binary search, and each day of the week has its own sorted list of positions so weekday filters
+ * only visit the matching days. Built once from the history, and rebuilt whenever it changes.
+ */
+public class HistoryIndex {
+
+    private final long[] days; // Epoch day of each entry, sorted
+    private final float[] values; // Average orders per hour of each day
+    private final int[][] byWeekday; // Positions of each weekday's days, indexed by DayOfWeek.ordinal()
+
+    /**
+     * @param history History to index by day, see {@link ShiftHistory#byDay()}. Values which are NaN are
+     *                left out just like the chart does
+     */
+    public HistoryIndex(NavigableMap<LocalDate, Float> history) {
+        int size = 0;
+        long[] allDays = new long[history.size()];
+        float[] allValues = new float[history.size()];
+        int[] weekdayCounts = new int[7];
+
+        for (Map.Entry<LocalDate, Float> entry : history.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isNaN()) continue;
+
+            allDays[size] = entry.getKey().toEpochDay();
+            allValues[size++] = entry.getValue();
+            weekdayCounts[entry.getKey().getDayOfWeek().ordinal()]++;
+        }
+        days = Arrays.copyOf(allDays, size);
+        values = Arrays.copyOf(allValues, size);
+
+        byWeekday = new int[7][];
+        for (int d = 0; d < 7; d++) byWeekday[d] = new int[weekdayCounts[d]];
+        int[] filled = new int[7];
+        for (int i = 0; i < size; i++) {
+            int d = LocalDate.ofEpochDay(days[i]).getDayOfWeek().ordinal();
+            byWeekday[d][filled[d]++] = i;
+        }
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    /** Returns the days matching the given query, oldest first */
+    public HistoryResult run(HistoryQuery query) {
+        // Positions [start, end) of days within the date range
+        int start = (query.from() != null) ? lowerBound(days, 0, days.length, query.from().toEpochDay()) : 0;
+        int end = (query.to() != null) ? lowerBound(days, 0, days.length, query.to().toEpochDay() + 1) : days.length;
+
+        List<LocalDate> dates = new ArrayList<>();
+        float[] matched = new float[Math.max(end - start, 0)];
+        int count = 0;
+
+        if (query.weekdays().size() == 7) { // No weekday filter, every position in range is a candidate
+            for (int i = start; i < end; i++) {
+                if (inValueRange(query, values[i])) {
+                    dates.add(LocalDate.ofEpochDay(days[i]));
+                    matched[count++] = values[i];
+                }
+            }
+        } else { // Merge the range of each wanted weekday's positions, keeping date order
+            int[] next = new int[7], last = new int[7];
+            for (DayOfWeek day : query.weekdays()) {
+                int[] positions = byWeekday[day.ordinal()];
+                next[day.ordinal()] = lowerBound(positions, start);
+                last[day.ordinal()] = lowerBound(positions, end);
+            }
+
+            while (true) {
+                int pick = -1, pickPosition = Integer.MAX_VALUE;
+                for (DayOfWeek day : query.weekdays()) {
+                    int d = day.ordinal();
+                    if (next[d] < last[d] && byWeekday[d][next[d]] < pickPosition) {
+                        pick = d;
+                        pickPosition = byWeekday[d][next[d]];
+                    }
+                }
+                if (pick < 0) break;
+
+                next[pick]++;
+                if (inValueRange(query, values[pickPosition])) {
+                    dates.add(LocalDate.ofEpochDay(days[pickPosition]));
+                    matched[count++] = values[pickPosition];
+                }
+            }
+        }
+
+        return new HistoryResult(dates, Arrays.copyOf(matched, count));
+    }
+
+    private static boolean inValueRange(HistoryQuery query, float value) {
+        return value >= query.min() && value <= query.max();
+    }
+
+    /** Returns the first position in [from, to) whose value is at least the given key */
+    private static int lowerBound(long[] array, int from, int to, long key) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] < key) {
+                from = middle + 1;
+            } else to = middle;
+        }
+        return from;
+    }
+
+    private static int lowerBound(int[] array, int key) {
+        int from = 0, to = array.length;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] < key) {
+                from = middle + 1;
+            } else to = middle;
+        }
+        return from;
+    }
+
+}
@@ -0,0 +1,47 @@
+package me.marcelohdez.bedroom.history;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A filter over shift history, run by a {@link HistoryIndex}. Queries are immutable, each "with" method
+ * returns a changed copy.
+ *
+ * @param from First date to include, null for no limit
+ * @param to Last date to include, null for no limit
+ * @param weekdays Days of the week to include
+ * @param min Lowest orders per hour to include
+ * @param max Highest orders per hour to include
+ */
+public record HistoryQuery(LocalDate from, LocalDate to, Set<DayOfWeek> weekdays, float min, float max) {
+
+    /** Query including every shift */
+    public static final HistoryQuery ALL = new HistoryQuery(null, null, EnumSet.allOf(DayOfWeek.class),
+            Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
+
+    public HistoryQuery {
+        weekdays = Collections.unmodifiableSet(
+                weekdays.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(weekdays));
+    }
+
+    public HistoryQuery withRange(LocalDate from, LocalDate to) {
+        return new HistoryQuery(from, to, weekdays, min, max);
+    }
+
+    public HistoryQuery withWeekdays(Set<DayOfWeek> weekdays) {
+        return new HistoryQuery(from, to, weekdays, min, max);
+    }
+
+    public HistoryQuery withValues(float min, float max) {
+        return new HistoryQuery(from, to, weekdays, min, max);
+    }
+
+    /** Returns whether this query leaves out any shift at all */
+    public boolean isFiltering() {
+        return !equals(ALL);
+    }
+
+}
@@ -0,0 +1,38 @@
+package me.marcelohdez.bedroom.history;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Days matched by a {@link HistoryQuery}, oldest first, along with their aggregates. Each day's value is the
+ * average of its shifts, so counts and streaks are in days.
+ *
+ * @param dates Matched days
+ * @param values Average orders per hour of each matched day, in the same order
+ */
+public record HistoryResult(List<LocalDate> dates, float[] values) {
+
+    public int count() {
+        return values.length;
+    }
+
+    /** Returns the average orders per hour, or NaN if nothing matched */
+    public float average() {
+        if (values.length == 0) return Float.NaN;
+
+        double sum = 0;
+        for (float value : values) sum += value;
+        return (float) (sum / values.length);
+    }
+
+    /** Returns the most matched days in a row which reached the given orders per hour */
+    public int bestStreakAtLeast(float target) {
+        int best = 0, current = 0;
+        for (float value : values) {
+            current = (value >= target) ? current + 1 : 0;
+            best = Math.max(best, current);
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,185 @@
+package me.marcelohdez.bedroom.history;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeParseException;
+import java.util.prefs.Preferences;
+
+/**
+ * Loads and saves shift performance history (key: {@link ShiftKey}, value: orders per hour) to a
+ * "shift.history" file, which stores it in a single line, ex: "{2021-10-29T09:00=4.5, 2021-10-29T17:00=5.25}".
+ * Files from before shifts had keys, ex: "{2021-10-29=4.5}", are still read.
+ */
+public final class HistoryStore {
+
+    public static final String FILE_NAME = "shift.history";
+    public static final String SKETCH_FILE_NAME = "shift.sketch";
+    public static final String FOLDER_PREF = "dataFolder"; // Preference of the folder the window keeps data in
+
+    private final Path file;
+    private final Path sketchFile;
+    private int skippedDates = 0; // Dates which could not be parsed on our last load
+
+    /**
+     * @param folder Folder the history file is kept in
+     */
+    public HistoryStore(Path folder) {
+        file = folder.resolve(FILE_NAME);
+        sketchFile = folder.resolve(SKETCH_FILE_NAME);
+    }
+
+    /**
+     * Returns the folder Bedroom keeps its data in, as saved by the window under {@link #FOLDER_PREF}. If
+     * the window never ran, falls back to "Documents" in the user's home on Windows, else their home itself,
+     * which is where the window would usually put it.
+     *
+     * @param prefs Preferences shared with the window
+     */
+    public static Path folderFrom(Preferences prefs) {
+        String saved = prefs.get(FOLDER_PREF, null);
+        if (saved != null) return Path.of(saved);
+
+        Path home = Path.of(System.getProperty("user.home"));
+        if (System.getProperty("os.name").startsWith("Windows")) home = home.resolve("Documents");
+        return home.resolve("bedroom-data");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Reads our history file, if it exists. Entries whose date cannot be read are skipped,
+     * see {@link #getSkippedDates()}.
+     *
+     * @return Past shifts, empty if there are none
+     * @throws IOException If unable to read the file
+     * @throws NumberFormatException If an orders per hour value is not a number
+     */
+    public ShiftHistory load() throws IOException {
+        skippedDates = 0;
+        if (!Files.exists(file)) return new ShiftHistory();
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) { // We only save history in a single line
+            String line = reader.readLine();
+            return parse(line != null ? line : "{}");
+        }
+    }
+
+    /**
+     * @return Amount of entries skipped on our last load, due to their date not being readable
+     */
+    public int getSkippedDates() {
+        return skippedDates;
+    }
+
+    /**
+     * Writes the given history to our file, creating its folder if needed. The file is replaced in one step,
+     * so if writing fails the previous history is kept rather than half of the new one.
+     *
+     * @param history History to save, null to save it as empty
+     * @throws IOException If unable to write the file
+     */
+    public void save(ShiftHistory history) throws IOException {
+        write(file, history != null ? history.toString() : "{}");
+    }
+
+    /**
+     * Reads the quantile sketch of our history's values, or builds it from the given history if it was
+     * never saved, can not be read, or does not hold as many values as the history. NaN values, ex: shifts
+     * without time worked, are not counted, as sketches leave them out.
+     *
+     * @param history History loaded from our file, to build the sketch from if needed
+     */
+    public QuantileSketch loadSketch(ShiftHistory history) {
+        if (Files.exists(sketchFile)) {
+            try {
+                QuantileSketch sketch = QuantileSketch.parse(Files.readString(sketchFile));
+                if (history == null || sketch.count() == finiteValues(history)) return sketch;
+            } catch (IOException | RuntimeException e) { // Rebuild it rather than losing percentiles
+                e.printStackTrace();
+            }
+        }
+        return buildSketch(history);
+    }
+
+    /** Returns how many of the history's values a sketch holds, which is far quicker than building one */
+    private static long finiteValues(ShiftHistory history) {
+        long count = 0;
+        for (float value : history.values()) if (Float.isFinite(value)) count++;
+        return count;
+    }
+
+    /** Builds a sketch holding every value of the given history */
+    public static QuantileSketch buildSketch(ShiftHistory history) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (history != null) history.values().forEach(sketch::add);
+        return sketch;
+    }
+
+    /**
+     * Writes the given sketch next to our history file.
+     *
+     * @throws IOException If unable to write the file
+     */
+    public void saveSketch(QuantileSketch sketch) throws IOException {
+        write(sketchFile, sketch.toString());
+    }
+
+    /** Writes the text to a temporary file next to the given one, then moves it over the given file */
+    private static void write(Path path, String text) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, text);
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private ShiftHistory parse(String str) {
+
+        ShiftHistory tm = new ShiftHistory();
+        if (str.equals("{}")) return tm; // If the string is an empty TreeMap there is nothing to read
+
+        int start = 1; // Start 1 character ahead to avoid the beginning bracket
+        int end = start;
+        String currentKey = "";
+        for (int i = 1; i < str.length() - 1; i++) { // -1 character from the end to avoid ending bracket
+
+            if (str.charAt(i) != ',') { // If it is not a comma then check:
+                if (str.charAt(i) != '=') { // If it is not a = then extend endpoint
+                    end++;
+                } else { // If it is a =,
+                    currentKey = str.substring(start, end); // Save this substring as the key
+                    start = i + 1; // Go a characters ahead to start on float value.
+                    end = i + 1;
+                }
+            } else { // Else if it is a comma, set the key we got before the = to the value after the =.
+                put(tm, currentKey, str.substring(start, end));
+                start = i + 2; // Go 2 characters ahead to avoid the space in between items.
+                end = i + 1;
+            }
+
+        }
+        put(tm, currentKey, str.substring(start, end)); // Once loop is finished add last bit
+
+        return tm;
+
+    }
+
+    private void put(ShiftHistory tm, String key, String value) {
+        try {
+            ShiftKey shift = ShiftKey.parse(key);
+            tm.put(shift, Float.parseFloat(value));
+        } catch (DateTimeParseException e) {
+            skippedDates++;
+        }
+    }
+
+}
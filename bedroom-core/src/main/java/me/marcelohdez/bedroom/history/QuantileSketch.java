@@ -0,0 +1,247 @@
+package me.marcelohdez.bedroom.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A KLL-style quantile sketch: it answers "what percentile is this value" and "what value is at this
+ * percentile" with a small, bounded amount of memory, no matter how many values were added. Values are kept
+ * in levels, where each value of level h stands for 2^h added values. When the sketch outgrows its capacity,
+ * the lowest full level is sorted and every other value is promoted to the next level, so answers stay
+ * within about 1% of the exact rank. Sketches can be merged, and are exact until they first compact.
+ */
+public class QuantileSketch {
+
+    public static final int DEFAULT_K = 200; // Accuracy, higher keeps more values
+
+    private final int k;
+    private final List<float[]> levels = new ArrayList<>(); // Values of each level, only the first sizes[h] used
+    private int[] sizes = new int[0];
+    private long count = 0; // Amount of values added
+    private final Random random = new Random(); // Picks which half of a level is promoted
+
+    // Every value kept, sorted, with the cumulative weight up to each. Rebuilt when asked for after changes
+    private float[] sortedValues;
+    private long[] cumulativeWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this.k = k;
+        addLevel();
+    }
+
+    /** Copies the given sketch, ex: so it can be saved from another thread while the original keeps changing */
+    public QuantileSketch(QuantileSketch other) {
+        k = other.k;
+        for (float[] level : other.levels) levels.add(level.clone());
+        sizes = other.sizes.clone();
+        count = other.count;
+    }
+
+    /** Returns the amount of values added, including those of merged sketches */
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Adds a value, NaN and infinite values are ignored */
+    public void add(float value) {
+        if (!Float.isFinite(value)) return;
+
+        append(0, value);
+        count++;
+        compress();
+    }
+
+    /** Adds every value of another sketch into this one */
+    public void merge(QuantileSketch other) {
+        for (int h = 0; h < other.levels.size(); h++) {
+            while (levels.size() <= h) addLevel();
+            for (int i = 0; i < other.sizes[h]; i++) append(h, other.levels.get(h)[i]);
+        }
+        count += other.count;
+        compress();
+    }
+
+    /**
+     * Returns the fraction of added values which are less than or equal to the given value,
+     * from 0 to 1, or NaN if this sketch is empty.
+     */
+    public double rank(float value) {
+        if (isEmpty()) return Double.NaN;
+        prepareSorted();
+
+        int index = upperBound(value); // Amount of kept values <= value
+        return (index == 0) ? 0 : cumulativeWeights[index - 1] / (double) cumulativeWeights[sortedValues.length - 1];
+    }
+
+    /**
+     * Returns the value at the given fraction of added values, ex: 0.6 for the 60th percentile,
+     * or NaN if this sketch is empty.
+     */
+    public float quantile(double fraction) {
+        if (isEmpty()) return Float.NaN;
+        prepareSorted();
+
+        long total = cumulativeWeights[sortedValues.length - 1];
+        long wanted = (long) Math.ceil(Math.min(Math.max(fraction, 0), 1) * total);
+        int low = 0, high = sortedValues.length - 1;
+        while (low < high) { // Find the first value whose cumulative weight reaches the wanted weight
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < wanted) {
+                low = middle + 1;
+            } else high = middle;
+        }
+        return sortedValues[low];
+    }
+
+    /**
+     * Writes this sketch as text, which {@link #parse(String)} reads back: the first line holds k and the
+     * count of added values, then each level's values are on their own line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(k).append(' ').append(count).append('\n');
+        for (int h = 0; h < levels.size(); h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(levels.get(h)[i]);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a sketch written by {@link #toString()}.
+     *
+     * @throws NumberFormatException If the text is not a sketch
+     */
+    public static QuantileSketch parse(String text) {
+        String[] lines = text.split("\n");
+        String[] header = lines[0].strip().split(" ");
+        if (header.length != 2) throw new NumberFormatException("Invalid sketch header: " + lines[0]);
+
+        QuantileSketch sketch = new QuantileSketch(Integer.parseInt(header[0]));
+        sketch.count = Long.parseLong(header[1]);
+        for (int h = 0; h < lines.length - 1; h++) {
+            while (sketch.levels.size() <= h) sketch.addLevel();
+            if (lines[h + 1].isBlank()) continue;
+
+            for (String value : lines[h + 1].strip().split(" ")) sketch.append(h, Float.parseFloat(value));
+        }
+        return sketch;
+    }
+
+    private void append(int level, float value) {
+        float[] values = levels.get(level);
+        if (sizes[level] == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            levels.set(level, values);
+        }
+        values[sizes[level]++] = value;
+        sortedValues = null;
+    }
+
+    private void addLevel() {
+        levels.add(new float[8]);
+        sizes = Arrays.copyOf(sizes, levels.size());
+    }
+
+    /** Returns how many values the given level may keep, lower levels keeping fewer as they weigh less */
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max((int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)), 2);
+    }
+
+    private void compress() {
+        while (true) {
+            int kept = 0, capacity = 0;
+            for (int h = 0; h < levels.size(); h++) {
+                kept += sizes[h];
+                capacity += capacity(h);
+            }
+            if (kept <= capacity) return;
+
+            for (int h = 0; h < levels.size(); h++) {
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Sorts a level and promotes every other value of it to the next level, each now weighing double */
+    private void compact(int level) {
+        if (level + 1 == levels.size()) addLevel();
+
+        float[] values = levels.get(level);
+        int size = sizes[level];
+        Arrays.sort(values, 0, size);
+
+        // An odd value out stays behind, so weights keep adding up
+        int pairs = size / 2;
+        float leftover = values[size - 1];
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = 0; i < pairs; i++) append(level + 1, values[i * 2 + offset]);
+
+        sizes[level] = 0;
+        if (size % 2 == 1) append(level, leftover);
+    }
+
+    private void prepareSorted() {
+        if (sortedValues != null) return;
+
+        int total = 0;
+        for (int size : sizes) total += size;
+
+        // Sort value and level pairs together, packed into longs so no objects are needed
+        long[] packed = new long[total];
+        int i = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            for (int j = 0; j < sizes[h]; j++) packed[i++] = ((long) sortableBits(levels.get(h)[j]) << 8) | h;
+        }
+        Arrays.sort(packed);
+
+        sortedValues = new float[total];
+        cumulativeWeights = new long[total];
+        long weight = 0;
+        for (i = 0; i < total; i++) {
+            sortedValues[i] = fromSortableBits((int) (packed[i] >> 8));
+            weight += 1L << (packed[i] & 0xFF);
+            cumulativeWeights[i] = weight;
+        }
+    }
+
+    /** Returns the amount of sorted values which are less than or equal to the given value */
+    private int upperBound(float value) {
+        int low = 0, high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else high = middle;
+        }
+        return low;
+    }
+
+    /** Converts a float's bits into an int which sorts the same way the float does, negatives included */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private static float fromSortableBits(int bits) {
+        return Float.intBitsToFloat(bits ^ ((bits >> 31) & 0x7FFFFFFF));
+    }
+
+}
@@ -0,0 +1,159 @@
+package me.marcelohdez.bedroom.history;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+/**
+ * Past shifts' orders per hour, each kept under its own {@link ShiftKey} so a split shift or a second clock
+ * in on the same day adds a shift instead of replacing the first. Shifts are sorted by start time, with a
+ * second index counting each day's shifts, so looking up a shift or a day are both O(log n). A day's value
+ * is the average of its shifts, worked out when asked for.
+ * <p>
+ * Not thread-safe, it should be changed from one thread.
+ */
+public class ShiftHistory {
+
+    private final TreeMap<ShiftKey, Float> shifts = new TreeMap<>();
+    private final TreeMap<LocalDate, Integer> shiftsPerDay = new TreeMap<>();
+
+    public ShiftHistory() {}
+
+    /** Copies the given history, ex: so it can be saved from another thread while the original keeps changing */
+    public ShiftHistory(ShiftHistory other) {
+        shifts.putAll(other.shifts);
+        shiftsPerDay.putAll(other.shiftsPerDay);
+    }
+
+    /**
+     * Adds a new shift, after any others which started at the same time.
+     *
+     * @param start Clock in time of the shift
+     * @param ordersPerHour Orders per hour done in the shift
+     * @return The new shift's key
+     */
+    public ShiftKey add(LocalDateTime start, float ordersPerHour) {
+        ShiftKey last = shifts.floorKey(new ShiftKey(start, Integer.MAX_VALUE));
+        ShiftKey key = new ShiftKey(start, (last != null && last.start().equals(start)) ? last.sequence() + 1 : 0);
+        put(key, ordersPerHour);
+        return key;
+    }
+
+    /**
+     * Sets the orders per hour of the shift with the given key.
+     *
+     * @return The shift's previous orders per hour, or null if it is new
+     */
+    public Float put(ShiftKey key, float ordersPerHour) {
+        Float previous = shifts.put(key, ordersPerHour);
+        if (previous == null) shiftsPerDay.merge(key.day(), 1, Integer::sum);
+        return previous;
+    }
+
+    /** Returns the orders per hour of the shift with the given key, or null if there is none */
+    public Float get(ShiftKey key) {
+        return shifts.get(key);
+    }
+
+    /**
+     * Removes the shift with the given key.
+     *
+     * @return Its orders per hour, or null if there was none
+     */
+    public Float remove(ShiftKey key) {
+        Float previous = shifts.remove(key);
+        if (previous != null) shiftsPerDay.computeIfPresent(key.day(), (day, count) -> (count > 1) ? count - 1 : null);
+        return previous;
+    }
+
+    /** Returns the shifts which started on the given day, sorted by start time. Read-only */
+    public NavigableMap<ShiftKey, Float> getShiftsOn(LocalDate day) {
+        if (!shiftsPerDay.containsKey(day)) return Collections.emptyNavigableMap();
+        return Collections.unmodifiableNavigableMap(
+                shifts.subMap(ShiftKey.firstOn(day), true, ShiftKey.firstOn(day.plusDays(1)), false));
+    }
+
+    /**
+     * Returns the average orders per hour of the shifts which started on the given day, or null if there are
+     * none. Shifts without a value (NaN, ex: no time worked) are left out, NaN being returned if all are.
+     */
+    public Float getDay(LocalDate day) {
+        NavigableMap<ShiftKey, Float> dayShifts = getShiftsOn(day);
+        if (dayShifts.isEmpty()) return null;
+
+        float sum = 0;
+        int count = 0;
+        for (float value : dayShifts.values()) {
+            if (Float.isNaN(value)) continue;
+            sum += value;
+            count++;
+        }
+        return (count > 0) ? sum / count : Float.NaN;
+    }
+
+    /**
+     * Removes every shift which started on the given day.
+     *
+     * @return Amount of shifts removed
+     */
+    public int removeDay(LocalDate day) {
+        Integer count = shiftsPerDay.remove(day);
+        if (count == null) return 0;
+
+        shifts.subMap(ShiftKey.firstOn(day), true, ShiftKey.firstOn(day.plusDays(1)), false).clear();
+        return count;
+    }
+
+    /** Returns the days which have shifts, sorted. Read-only */
+    public NavigableSet<LocalDate> days() {
+        return Collections.unmodifiableNavigableSet(shiftsPerDay.navigableKeySet());
+    }
+
+    /** Returns every day's value like {@link #getDay(LocalDate)} does, in a single pass over all shifts */
+    public TreeMap<LocalDate, Float> byDay() {
+        TreeMap<LocalDate, Float> days = new TreeMap<>();
+        LocalDate day = null;
+        float sum = 0;
+        int count = 0;
+        for (Map.Entry<ShiftKey, Float> shift : shifts.entrySet()) {
+            if (!shift.getKey().day().equals(day)) { // Shifts are sorted, so this day is done
+                if (day != null) days.put(day, (count > 0) ? sum / count : Float.NaN);
+                day = shift.getKey().day();
+                sum = 0;
+                count = 0;
+            }
+            if (shift.getValue().isNaN()) continue; // Left out just like getDay does
+            sum += shift.getValue();
+            count++;
+        }
+        if (day != null) days.put(day, (count > 0) ? sum / count : Float.NaN);
+
+        return days;
+    }
+
+    /** Returns every shift's orders per hour, sorted by start time. Read-only */
+    public Collection<Float> values() {
+        return Collections.unmodifiableCollection(shifts.values());
+    }
+
+    /** Returns the amount of shifts */
+    public int size() {
+        return shifts.size();
+    }
+
+    public boolean isEmpty() {
+        return shifts.isEmpty();
+    }
+
+    /** Writes every shift as "{key=value, key=value}", which {@link HistoryStore} reads back */
+    @Override
+    public String toString() {
+        return shifts.toString();
+    }
+
+}
@@ -0,0 +1,59 @@
+package me.marcelohdez.bedroom.history;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Identifies a shift in history by its clock in time, plus a sequence number telling apart shifts which
+ * started at the same time. Keys sort by start time, so a day's shifts are next to each other.
+ *
+ * @param start Clock in time of the shift
+ * @param sequence 0 for the first shift starting at this time, 1 for the second...
+ */
+public record ShiftKey(LocalDateTime start, int sequence) implements Comparable<ShiftKey> {
+
+    /** Returns the lowest key a shift starting on the given day can have */
+    public static ShiftKey firstOn(LocalDate day) {
+        return new ShiftKey(day.atStartOfDay(), 0);
+    }
+
+    /**
+     * Reads a key written by {@link #toString()}, ex: "2021-10-29T09:00" or "2021-10-29T09:00#1". Dates
+     * alone, from history saved before shifts had keys, are read as a shift starting at that day's midnight.
+     *
+     * @throws DateTimeParseException If the text is not a key
+     */
+    public static ShiftKey parse(String text) {
+        int hash = text.indexOf('#');
+        String start = (hash >= 0) ? text.substring(0, hash) : text;
+        int sequence = 0;
+        if (hash >= 0) {
+            try {
+                sequence = Integer.parseInt(text.substring(hash + 1));
+            } catch (NumberFormatException e) {
+                throw new DateTimeParseException("Invalid shift sequence", text, hash + 1);
+            }
+        }
+
+        return new ShiftKey(start.indexOf('T') >= 0 ? LocalDateTime.parse(start) :
+                LocalDate.parse(start).atStartOfDay(), sequence);
+    }
+
+    /** Returns the day this shift started on, which is the day it is shown under */
+    public LocalDate day() {
+        return start.toLocalDate();
+    }
+
+    @Override
+    public int compareTo(ShiftKey other) {
+        int byStart = start.compareTo(other.start);
+        return (byStart != 0) ? byStart : Integer.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return (sequence > 0) ? start + "#" + sequence : start.toString();
+    }
+
+}
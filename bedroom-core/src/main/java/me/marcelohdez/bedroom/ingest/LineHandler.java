@@ -0,0 +1,25 @@
+package me.marcelohdez.bedroom.ingest;
+
+/**
+ * Handles the lines read by an {@link OrderServer}. Lines are handled on the server's thread, which is also
+ * the only thread calling {@link #endOfPass()}, so handlers may batch work without any locking.
+ */
+public interface LineHandler {
+
+    /**
+     * Handles one line sent by a client.
+     *
+     * @param line The line, without its line break
+     * @return A reply to send back to the client, or null for none
+     */
+    String handle(String line);
+
+    /**
+     * Called once every connection's lines have been read in a pass, to apply anything batched since.
+     *
+     * @return A reply to send back to every client which sent lines in this pass, ex: as some of their
+     * orders were not accepted, or null for none
+     */
+    String endOfPass();
+
+}
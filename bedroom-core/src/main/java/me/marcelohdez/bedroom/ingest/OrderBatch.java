@@ -0,0 +1,80 @@
+package me.marcelohdez.bedroom.ingest;
+
+import me.marcelohdez.bedroom.shift.ShiftSession;
+
+import java.util.Locale;
+
+/**
+ * Collects order commands and applies them to a session all at once. Commands are:
+ * <ul>
+ *     <li>"+N": Add N orders</li>
+ *     <li>"-N": Remove N orders</li>
+ *     <li>"set N": Set orders to N, discarding any commands before it in this batch</li>
+ * </ul>
+ */
+public class OrderBatch {
+
+    private long delta = 0; // Orders to add
+    private long setTo = -1; // Orders to set to before adding, -1 if no set command was given
+    private int commands = 0;
+
+    /**
+     * Adds a command to this batch.
+     *
+     * @param line The command
+     * @return Whether the command was valid
+     */
+    public boolean add(String line) {
+        String command = line.strip().toLowerCase(Locale.ROOT);
+
+        try {
+            if (command.startsWith("+") || command.startsWith("-")) {
+                delta = Math.addExact(delta, Long.parseLong(command)); // parseLong accepts a leading + or -
+            } else if (command.startsWith("set ")) {
+                long value = Long.parseLong(command.substring(4).strip());
+                if (value < 0) return false;
+
+                setTo = value;
+                delta = 0; // Anything before the set command no longer matters
+            } else return false;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return false;
+        }
+
+        commands++;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return commands == 0;
+    }
+
+    /** Returns the amount of commands in this batch */
+    public int size() {
+        return commands;
+    }
+
+    /**
+     * Applies this batch's commands to the given session as a single change, then clears this batch.
+     *
+     * @param session Session to apply to
+     * @return Whether the session accepted the change, as orders can only be changed while clocked in
+     */
+    public boolean applyTo(ShiftSession session) {
+        boolean accepted = true;
+
+        if (setTo >= 0) {
+            accepted = session.setOrders(setTo + delta, true);
+        } else if (delta != 0) accepted = session.addOrders(delta);
+
+        clear();
+        return accepted;
+    }
+
+    public void clear() {
+        delta = 0;
+        setTo = -1;
+        commands = 0;
+    }
+
+}
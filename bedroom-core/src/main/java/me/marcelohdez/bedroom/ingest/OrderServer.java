@@ -0,0 +1,251 @@
+package me.marcelohdez.bedroom.ingest;
+
+import me.marcelohdez.bedroom.shift.ShiftSession;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A small line-based server only reachable from this computer, letting scripts record orders into sessions.
+ * Lines are given to a {@link LineHandler}, which is told when a pass over all connections is done, so that
+ * every command read in one pass can be applied as a single change: a script sending thousands of commands
+ * a second causes a handful of updates instead of thousands.
+ */
+public class OrderServer implements AutoCloseable {
+
+    private static final int MAX_LINE_LENGTH = 128; // Longer lines can not be valid commands, so they are skipped
+    private static final int MAX_UNSENT_REPLIES = 64 * 1024; // Bytes kept for a client not reading its replies
+
+    private final LineHandler handler;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private final List<SelectionKey> sentLines = new ArrayList<>(); // Clients which sent lines this pass
+    private volatile boolean running = true;
+
+    /** What has been read so far from one client */
+    private static class Connection {
+        private final StringBuilder line = new StringBuilder();
+        private boolean overflow = false; // Whether the current line is too long, so it must be skipped whole
+        private final Deque<ByteBuffer> unsent = new ArrayDeque<>(); // Replies the client has not taken yet
+        private int unsentBytes = 0;
+    }
+
+    /**
+     * Creates and starts a server on the given port of the loopback address, recording orders into one session.
+     *
+     * @param session Session to record orders into
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException If unable to listen on the port
+     * @see SessionLineHandler
+     */
+    public OrderServer(ShiftSession session, int port) throws IOException {
+        this(new SessionLineHandler(session), port);
+    }
+
+    /**
+     * Creates and starts a server on the given port of the loopback address.
+     *
+     * @param handler Handler of the lines read
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException If unable to listen on the port
+     */
+    public OrderServer(LineHandler handler, int port) throws IOException {
+        this.handler = handler;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+
+        thread = new Thread(this::run, "Bedroom order server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Returns the port this server is listening on */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    if (key.isWritable()) sendUnsent(key);
+                    if (key.isValid() && key.isReadable()) read(key);
+                }
+
+                String reply = handler.endOfPass(); // Apply everything read in this pass at once
+                if (reply != null) {
+                    for (SelectionKey key : sentLines) if (key.isValid()) reply(key, reply + "\n");
+                }
+                sentLines.clear();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel client = server.accept();
+            if (client != null) {
+                client.configureBlocking(false);
+                client.register(selector, SelectionKey.OP_READ, new Connection());
+            }
+        } catch (IOException e) { // Only this client failed to connect, keep serving others
+            e.printStackTrace();
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel client = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (!sentLines.contains(key)) sentLines.add(key); // Few clients, so a list is quickest
+        StringBuilder line = connection.line; // Line read so far from this client
+
+        try {
+            readBuffer.clear();
+            int read = client.read(readBuffer);
+            if (read < 0) { // Client disconnected
+                closeClient(key);
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                char c = (char) readBuffer.get(); // Commands are plain ASCII
+                if (c == '\n') {
+                    if (connection.overflow) { // Never hand over part of a line, ex: "set 0" out of "set 00...05"
+                        reply(key, "line too long, skipped\n");
+                        connection.overflow = false;
+                    } else handleLine(key, line.toString());
+                    line.setLength(0);
+                } else if (line.length() < MAX_LINE_LENGTH) {
+                    if (!connection.overflow) line.append(c);
+                } else {
+                    connection.overflow = true;
+                    line.setLength(0); // Free what was read, the line is skipped anyway
+                }
+            }
+        } catch (IOException e) {
+            closeClient(key);
+        }
+    }
+
+    private void handleLine(SelectionKey key, String line) {
+        if (line.isBlank()) return;
+
+        String reply = handler.handle(line);
+        if (reply != null) reply(key, reply + "\n");
+    }
+
+    /**
+     * Sends a message to the given client. What its socket does not take right away is kept and sent once it
+     * can take more, unless too much is waiting already, in which case the client is not reading its replies
+     * and is disconnected.
+     */
+    private void reply(SelectionKey key, String message) {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer bytes = ByteBuffer.wrap(message.getBytes(StandardCharsets.US_ASCII));
+
+        try {
+            if (connection.unsent.isEmpty()) ((SocketChannel) key.channel()).write(bytes);
+        } catch (IOException e) {
+            closeClient(key);
+            return;
+        }
+        if (!bytes.hasRemaining()) return;
+
+        connection.unsentBytes += bytes.remaining();
+        if (connection.unsentBytes > MAX_UNSENT_REPLIES) {
+            System.err.println("Disconnected an order server client which was not reading its replies");
+            closeClient(key);
+            return;
+        }
+        connection.unsent.add(bytes);
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE); // Told once the socket takes more
+    }
+
+    /** Sends replies kept for the given client, for as long as its socket takes them */
+    private void sendUnsent(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            while (!connection.unsent.isEmpty()) {
+                ByteBuffer bytes = connection.unsent.peek();
+                connection.unsentBytes -= ((SocketChannel) key.channel()).write(bytes);
+                if (bytes.hasRemaining()) return; // Socket is full again
+
+                connection.unsent.remove();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            closeClient(key);
+        }
+    }
+
+    private void closeClient(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) closeClient(key); // Includes the server's key
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Stops this server and disconnects all clients */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000); // Wait for our thread to let go of the port
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package me.marcelohdez.bedroom.ingest;
+
+import me.marcelohdez.bedroom.shift.ShiftSession;
+
+/**
+ * Records the orders sent to an {@link OrderServer} into a single session. Each line is an {@link OrderBatch}
+ * command, or "get" to reply with the current amount of orders.
+ */
+public class SessionLineHandler implements LineHandler {
+
+    private final ShiftSession session;
+    private final OrderBatch batch = new OrderBatch();
+    private boolean rejected = false; // Whether orders were not accepted since our last pass
+
+    public SessionLineHandler(ShiftSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public String handle(String line) {
+        if (line.strip().equalsIgnoreCase("get")) {
+            apply(); // Apply what we have so far so the reply includes it
+            return String.valueOf(session.getOrders());
+        } else if (!batch.add(line)) return "unknown command: " + line.strip();
+
+        return null;
+    }
+
+    @Override
+    public String endOfPass() {
+        apply();
+        if (!rejected) return null;
+
+        rejected = false;
+        return "orders not recorded, only possible while clocked in and not on break";
+    }
+
+    private void apply() {
+        if (!batch.isEmpty() && !batch.applyTo(session)) rejected = true;
+    }
+
+}
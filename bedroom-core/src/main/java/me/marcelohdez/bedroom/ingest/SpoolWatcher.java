@@ -0,0 +1,212 @@
+package me.marcelohdez.bedroom.ingest;
+
+import me.marcelohdez.bedroom.shift.ShiftSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a folder for order event files, for tools which can only drop files. Each file holds one
+ * {@link OrderBatch} command per line and may be appended to over time: we remember how far into each file
+ * we have read (saved in a hidden offsets file, so restarts do not count lines twice) and only ever read
+ * what was added since. Everything read after one wake up is applied to the session as a single change,
+ * so there is no polling, and the work done only grows with the amount of events.
+ * <p>
+ * Lines only count as read once the session accepts them: while it does not (ex: before clocking in or
+ * during a break) they are read again every {@link #RETRY_SECONDS} seconds until it does.
+ */
+public class SpoolWatcher implements AutoCloseable {
+
+    private static final String OFFSETS_FILE = ".offsets";
+    private static final long RETRY_SECONDS = 5; // How often rejected lines are tried again
+
+    private final ShiftSession session;
+    private final Path folder;
+    private final WatchService watcher;
+    private final OrderBatch batch = new OrderBatch();
+    private final Map<String, Long> offsets = new HashMap<>(); // Bytes already counted of each file, by name
+    private final Map<String, Long> pending = new HashMap<>(); // Bytes read into our batch, not yet counted
+    private final Map<String, Long> seen = new HashMap<>(); // Bytes read at least once, so skipped lines are told once
+    private boolean rejected = false; // Whether the session did not accept our last batch
+
+    /**
+     * Creates the folder if needed and starts watching it.
+     *
+     * @param session Session to record orders into
+     * @param folder Folder to watch
+     * @throws IOException If unable to create or watch the folder
+     */
+    public SpoolWatcher(ShiftSession session, Path folder) throws IOException {
+        this.session = session;
+        this.folder = folder;
+
+        Files.createDirectories(folder);
+        loadOffsets();
+        watcher = folder.getFileSystem().newWatchService();
+        folder.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+        Thread thread = new Thread(this::run, "Bedroom spool watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Path getFolder() {
+        return folder;
+    }
+
+    private void run() {
+        try {
+            readAll(); // Catch up with anything written while we were not watching
+
+            while (true) {
+                WatchKey key = rejected ? watcher.poll(RETRY_SECONDS, TimeUnit.SECONDS) : watcher.take();
+                while (key != null) { // Handle every key ready by now at once
+                    handleEvents(key);
+                    key.reset();
+                    key = watcher.poll();
+                }
+
+                if (rejected) {
+                    readAll(); // Read rejected lines again, from where they were last counted
+                } else applyBatch();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // We were closed
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) { // Some events were lost, so check every file
+                readAll();
+                continue;
+            }
+
+            String name = event.context().toString();
+            if (name.equals(OFFSETS_FILE)) continue;
+
+            if (event.kind() == ENTRY_DELETE) {
+                pending.remove(name);
+                seen.remove(name);
+                if (offsets.remove(name) != null) saveOffsets(); // Else a new file by this name would skip bytes
+            } else readNewLines(folder.resolve(name));
+        }
+    }
+
+    private void readAll() {
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().equals(OFFSETS_FILE)) readNewLines(file);
+            }
+        } catch (IOException | UncheckedIOException e) { // Keep watching, files are read again on their next change
+            System.err.println("Unable to list the order folder " + folder + ": " + e.getMessage());
+        }
+        applyBatch();
+    }
+
+    /** Reads the complete lines added to the given file since we last read it into our batch */
+    private void readNewLines(Path file) {
+        if (!Files.isRegularFile(file)) return;
+        String name = file.getFileName().toString();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long offset = pending.getOrDefault(name, offsets.getOrDefault(name, 0L));
+            long size = channel.size();
+            if (size < offset) { // File was replaced or truncated, read it from the start
+                offset = 0;
+                seen.remove(name);
+            }
+            if (size == offset) return;
+
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(size - offset, Integer.MAX_VALUE));
+            channel.read(bytes, offset);
+            bytes.flip();
+
+            // Only read up to the last complete line, the rest is read once its line is finished
+            int lineStart = 0;
+            for (int i = 0; i < bytes.limit(); i++) {
+                if (bytes.get(i) == '\n') {
+                    String line = new String(bytes.array(), lineStart, i - lineStart, StandardCharsets.UTF_8);
+                    if (!line.isBlank() && !batch.add(line) && offset + lineStart >= seen.getOrDefault(name, 0L))
+                        System.err.println("Skipped unknown order command in " + name + ": " + line.strip());
+                    lineStart = i + 1;
+                }
+            }
+
+            pending.put(name, offset + lineStart);
+            seen.merge(name, offset + lineStart, Math::max);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Applies our batch, only counting the lines read into it once the session accepts it */
+    private void applyBatch() {
+        if (batch.isEmpty() || batch.applyTo(session)) {
+            if (rejected) System.err.println("Spool orders are being counted again");
+            rejected = false;
+            if (pending.isEmpty()) return; // Nothing was read, ex: we were woken by saving our offsets
+
+            offsets.putAll(pending);
+            pending.clear();
+            saveOffsets();
+        } else {
+            pending.clear(); // Read them again later, from the last counted offsets
+            if (!rejected) System.err.println("Spool orders can only be counted while clocked in and not on " +
+                    "break, retrying every " + RETRY_SECONDS + "s");
+            rejected = true;
+        }
+    }
+
+    private void loadOffsets() throws IOException {
+        Path file = folder.resolve(OFFSETS_FILE);
+        if (!Files.exists(file)) return;
+
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            saved.load(reader);
+        }
+        for (String name : saved.stringPropertyNames()) {
+            try {
+                offsets.put(name, Long.parseLong(saved.getProperty(name)));
+            } catch (NumberFormatException e) { // Read that file again rather than guessing
+                System.err.println("Invalid spool offset for " + name);
+            }
+        }
+    }
+
+    private void saveOffsets() {
+        Properties saved = new Properties();
+        offsets.forEach((name, offset) -> saved.setProperty(name, String.valueOf(offset)));
+
+        try (Writer writer = Files.newBufferedWriter(folder.resolve(OFFSETS_FILE))) {
+            saved.store(writer, "Bytes of each file already counted by Bedroom");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Stops watching the folder */
+    @Override
+    public void close() {
+        try {
+            watcher.close(); // Ends our thread
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
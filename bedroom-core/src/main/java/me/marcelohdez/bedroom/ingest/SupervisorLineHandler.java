@@ -0,0 +1,116 @@
+package me.marcelohdez.bedroom.ingest;
+
+import me.marcelohdez.bedroom.shift.SessionRegistry;
+import me.marcelohdez.bedroom.shift.ShiftSession;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Records what an {@link OrderServer} is sent into the sessions of many agents. Each line starts with the
+ * agent's name, followed by one of:
+ * <ul>
+ *     <li>"shift START END [TARGET]": Clock in and out times, either as "HH:mm" for today or in full as
+ *     "2021-10-29T16:00", with an optional target of orders per hour</li>
+ *     <li>"break START END": Break times, in the same format</li>
+ *     <li>"target N": Target orders per hour</li>
+ *     <li>"get": Reply with the agent's current amount of orders</li>
+ *     <li>Any {@link OrderBatch} command, ex: "+1"</li>
+ * </ul>
+ * Order commands are batched per agent, and applied once per pass of the server.
+ */
+public class SupervisorLineHandler implements LineHandler {
+
+    private final SessionRegistry registry;
+    private final Map<String, OrderBatch> batches = new HashMap<>(); // By agent, reused, only applied when not empty
+    private final Set<String> rejected = new TreeSet<>(); // Agents whose orders were not accepted this pass
+
+    public SupervisorLineHandler(SessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String handle(String line) {
+        String[] parts = line.strip().split("\\s+");
+        if (parts.length < 2) return "unknown command: " + line.strip();
+
+        // Every command is read in full before the agent is looked up, so a mistyped line never adds an agent
+        String agent = parts[0];
+        try {
+            switch (parts[1].toLowerCase(Locale.ROOT)) {
+                case "shift" -> {
+                    LocalDateTime start = parseTime(parts[2], null);
+                    LocalDateTime end = parseTime(parts[3], start);
+                    Integer target = (parts.length > 4) ? Integer.parseInt(parts[4]) : null;
+
+                    ShiftSession session = registry.getOrCreate(agent);
+                    session.setShift(start, end);
+                    if (target != null) session.setTarget(target);
+                }
+                case "break" -> {
+                    ShiftSession known = registry.get(agent);
+                    LocalDateTime start = parseTime(parts[2], (known != null) ? known.getPlan().clockIn() : null);
+                    LocalDateTime end = parseTime(parts[3], start);
+                    registry.getOrCreate(agent).setBreak(start, end);
+                }
+                case "target" -> {
+                    int target = Integer.parseInt(parts[2]);
+                    registry.getOrCreate(agent).setTarget(target);
+                }
+                case "get" -> {
+                    apply(); // Apply what we have so far so the reply includes it
+                    ShiftSession known = registry.get(agent);
+                    return String.valueOf((known != null) ? known.getOrders() : 0);
+                }
+                default -> { // Order commands, which may contain spaces themselves ("set N")
+                    String command = line.strip().substring(agent.length());
+                    OrderBatch batch = batches.containsKey(agent) ? batches.get(agent) : new OrderBatch();
+                    if (!batch.add(command)) return "unknown command: " + line.strip();
+                    batches.putIfAbsent(agent, batch); // Kept once valid, the agent's session is made when applied
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException | DateTimeParseException e) {
+            return "invalid command: " + line.strip();
+        }
+
+        return null;
+    }
+
+    @Override
+    public String endOfPass() {
+        apply();
+        if (rejected.isEmpty()) return null;
+
+        String reply = "orders not recorded for " + String.join(", ", rejected) +
+                ", only possible while clocked in and not on break";
+        rejected.clear();
+        return reply;
+    }
+
+    private void apply() {
+        batches.forEach((agent, batch) -> {
+            if (!batch.isEmpty() && !batch.applyTo(registry.getOrCreate(agent))) rejected.add(agent);
+        });
+    }
+
+    /**
+     * Parses a time given as "HH:mm" or in full.
+     *
+     * @param time Time to parse
+     * @param after If not null, "HH:mm" times are moved to the next day when they are not after this time,
+     *              for overnight shifts
+     */
+    private static LocalDateTime parseTime(String time, LocalDateTime after) {
+        if (time.contains("T")) return LocalDateTime.parse(time);
+
+        LocalDateTime parsed = (after != null ? after : LocalDateTime.now()).with(LocalTime.parse(time));
+        return (after != null && !parsed.isAfter(after)) ? parsed.plusDays(1) : parsed;
+    }
+
+}
@@ -0,0 +1,104 @@
+package me.marcelohdez.bedroom.prefs;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * A preferences node whose values live in a {@link PreferenceFile}, shared with every other node. The root
+ * node's keys are stored as they are, while other nodes' keys are stored after their path and a null
+ * character, which preferences do not allow in keys, ex: "/shortcuts\0save".
+ */
+final class FilePreferences extends AbstractPreferences {
+
+    private static final char SEPARATOR = '\0';
+
+    private final PreferenceFile store;
+
+    FilePreferences(PreferenceFile store) {
+        super(null, "");
+        this.store = store;
+    }
+
+    private FilePreferences(FilePreferences parent, String name) {
+        super(parent, name);
+        this.store = parent.store;
+    }
+
+    @Override
+    protected void putSpi(String key, String value) {
+        store.put(entryKey(key), value);
+    }
+
+    @Override
+    protected String getSpi(String key) {
+        return store.get(entryKey(key));
+    }
+
+    @Override
+    protected void removeSpi(String key) {
+        store.remove(entryKey(key));
+    }
+
+    @Override
+    protected void removeNodeSpi() {
+        for (String key : keysSpi()) removeSpi(key);
+    }
+
+    @Override
+    protected String[] keysSpi() {
+        Set<String> keys = new LinkedHashSet<>();
+        String prefix = entryKey("");
+        synchronized (store) {
+            for (String key : store.values().tailMap(prefix).keySet()) {
+                if (!key.startsWith(prefix)) break; // Keys are sorted, so this node's are all together
+                String name = key.substring(prefix.length());
+                if (name.indexOf(SEPARATOR) < 0) keys.add(name); // Not a descendant's
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    @Override
+    protected String[] childrenNamesSpi() {
+        Set<String> names = new LinkedHashSet<>();
+        String prefix = isRoot() ? "/" : absolutePath() + "/";
+        synchronized (store) {
+            for (String key : store.values().tailMap(prefix).keySet()) {
+                if (!key.startsWith(prefix)) break;
+                int end = key.indexOf(SEPARATOR);
+                if (end < 0) continue;
+
+                String rest = key.substring(prefix.length(), end); // Path below ours, ex: "child/grandchild"
+                int slash = rest.indexOf('/');
+                names.add((slash >= 0) ? rest.substring(0, slash) : rest);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    protected AbstractPreferences childSpi(String name) {
+        return new FilePreferences(this, name);
+    }
+
+    @Override
+    protected void syncSpi() throws BackingStoreException {
+        store.sync();
+    }
+
+    @Override
+    protected void flushSpi() throws BackingStoreException {
+        store.flush();
+    }
+
+    private boolean isRoot() {
+        return parent() == null;
+    }
+
+    private String entryKey(String key) {
+        return isRoot() ? key : absolutePath() + SEPARATOR + key;
+    }
+
+}
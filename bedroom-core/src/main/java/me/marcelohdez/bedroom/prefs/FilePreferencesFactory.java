@@ -0,0 +1,64 @@
+package me.marcelohdez.bedroom.prefs;
+
+import java.nio.file.Path;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+import java.util.prefs.PreferencesFactory;
+
+/**
+ * Keeps preferences in a single small file, ".bedroom/preferences" in the user's home, instead of the
+ * platform's backend (ex: the registry on Windows), which costs a call per key. The file is read once, and
+ * written in batches.
+ * <p>
+ * The first time it is used, the platform's user preferences are copied over, so nothing is lost
+ * on updating. This is skipped when this factory is set as the default through the
+ * "java.util.prefs.PreferencesFactory" property, as the platform's backend can not be reached then.
+ */
+public class FilePreferencesFactory implements PreferencesFactory {
+
+    private static FilePreferences root;
+
+    /** Returns the file preferences are kept in, which may be changed with the "bedroom.prefs.file" property */
+    public static Path getFile() {
+        String file = System.getProperty("bedroom.prefs.file");
+        if (file != null) return Path.of(file);
+        return Path.of(System.getProperty("user.home"), ".bedroom", "preferences");
+    }
+
+    @Override
+    public Preferences userRoot() {
+        return getRoot();
+    }
+
+    /** Returns the same node as {@link #userRoot()}, as there is only one file */
+    @Override
+    public Preferences systemRoot() {
+        return getRoot();
+    }
+
+    private static synchronized Preferences getRoot() {
+        if (root == null) {
+            PreferenceFile store = new PreferenceFile(getFile());
+            root = new FilePreferences(store);
+            if (!store.exists() && !isDefaultFactory()) importFrom(Preferences.userRoot(), root);
+        }
+        return root;
+    }
+
+    private static boolean isDefaultFactory() {
+        return FilePreferencesFactory.class.getName().equals(System.getProperty("java.util.prefs.PreferencesFactory"));
+    }
+
+    /** Copies every key of one node into another. Children are left out, as they belong to other programs */
+    private static void importFrom(Preferences from, Preferences to) {
+        try {
+            for (String key : from.keys()) {
+                String value = from.get(key, null);
+                if (value != null) to.put(key, value);
+            }
+        } catch (BackingStoreException | IllegalStateException e) { // Start from defaults rather than not starting
+            e.printStackTrace();
+        }
+    }
+
+}
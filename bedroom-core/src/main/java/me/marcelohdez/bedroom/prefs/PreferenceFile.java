@@ -0,0 +1,160 @@
+package me.marcelohdez.bedroom.prefs;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * Every preference of every {@link FilePreferences} node, read from a single file once and kept in memory.
+ * Changes are written back in batches a moment after the first one, and on exit, so a burst of changes,
+ * like saving a theme, is a single write. Writes merge our changes into whatever is in the file at the time,
+ * so another process using the same file (ex: the command line) does not lose its own changes.
+ */
+final class PreferenceFile {
+
+    private static final long WRITE_DELAY = 1000; // Milliseconds to wait for more changes before writing
+
+    private final Path file;
+    private final TreeMap<String, String> values = new TreeMap<>();
+    private final Map<String, String> pending = new HashMap<>(); // Changes not written yet, null if removed
+    private FileTime readTime; // Modified time of the file when we last read or wrote it, null if none
+    private boolean writeScheduled = false;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Preferences writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    PreferenceFile(Path file) {
+        this.file = file;
+        try {
+            read(values);
+        } catch (IOException e) { // Start empty rather than not starting at all
+            e.printStackTrace();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "Preferences flush"));
+    }
+
+    boolean exists() {
+        return readTime != null;
+    }
+
+    synchronized String get(String key) {
+        return values.get(key);
+    }
+
+    synchronized void put(String key, String value) {
+        values.put(key, value);
+        changed(key, value);
+    }
+
+    synchronized void remove(String key) {
+        if (values.remove(key) != null) changed(key, null);
+    }
+
+    /** Returns every key and value, sorted by key. Must be used while synchronized on this */
+    TreeMap<String, String> values() {
+        return values;
+    }
+
+    /** Writes our changes to the file, if there are any */
+    synchronized void flush() throws BackingStoreException {
+        if (pending.isEmpty()) return;
+
+        try {
+            if (changedOnDisk()) reload();
+
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Properties properties = new Properties();
+            properties.putAll(values);
+            try (Writer out = Files.newBufferedWriter(temp)) {
+                properties.store(out, "Bedroom preferences");
+            }
+            try { // Replace the file in one step, so it is never seen half written
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            readTime = Files.getLastModifiedTime(file);
+            pending.clear();
+        } catch (IOException e) {
+            throw new BackingStoreException(e);
+        }
+    }
+
+    /** Picks up changes made to the file by others, then writes ours */
+    synchronized void sync() throws BackingStoreException {
+        try {
+            if (changedOnDisk()) reload();
+        } catch (IOException e) {
+            throw new BackingStoreException(e);
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        synchronized (this) {
+            writeScheduled = false;
+        }
+        try {
+            flush();
+        } catch (BackingStoreException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void changed(String key, String value) {
+        pending.put(key, value);
+        if (!writeScheduled) {
+            writeScheduled = true;
+            writer.schedule(this::flushQuietly, WRITE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean changedOnDisk() throws IOException {
+        if (!Files.exists(file)) return readTime != null;
+        return !Files.getLastModifiedTime(file).equals(readTime);
+    }
+
+    /** Reads the file again, keeping our changes which are not written yet on top */
+    private void reload() throws IOException {
+        values.clear();
+        read(values);
+        pending.forEach((key, value) -> {
+            if (value != null) {
+                values.put(key, value);
+            } else values.remove(key);
+        });
+    }
+
+    private void read(Map<String, String> into) throws IOException {
+        if (!Files.exists(file)) {
+            readTime = null;
+            return;
+        }
+
+        readTime = Files.getLastModifiedTime(file);
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            properties.load(in);
+        }
+        properties.forEach((key, value) -> into.put((String) key, (String) value));
+    }
+
+}
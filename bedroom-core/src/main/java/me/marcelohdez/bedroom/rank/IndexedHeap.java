@@ -0,0 +1,153 @@
+package me.marcelohdez.bedroom.rank;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A binary heap of ids from 0 upwards, each with a long key. It remembers where every id is in the heap,
+ * so an id's key can be changed or removed in O(log n) instead of searching for it first.
+ */
+public class IndexedHeap {
+
+    private final boolean max; // Whether the largest key is on top, else the smallest
+
+    private int[] heap = new int[16]; // Ids, in heap order
+    private int[] positions = new int[16]; // Position of each id in the heap, -1 if absent
+    private long[] keys = new long[16]; // Key of each id
+    private int size = 0;
+
+    /**
+     * @param max Whether the largest key should be on top, else the smallest
+     */
+    public IndexedHeap(boolean max) {
+        this.max = max;
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return id < positions.length && positions[id] >= 0;
+    }
+
+    /** Returns the id on top, whose key is the largest or smallest. The heap must not be empty */
+    public int peek() {
+        return heap[0];
+    }
+
+    public long keyOf(int id) {
+        return keys[id];
+    }
+
+    /** Adds the given id with the given key, or changes its key if it is already in the heap */
+    public void put(int id, long key) {
+        if (!contains(id)) {
+            ensureCapacity(id);
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+
+            heap[size] = id;
+            positions[id] = size;
+            keys[id] = key;
+            up(size++);
+            return;
+        }
+
+        long oldKey = keys[id];
+        keys[id] = key;
+        if (before(key, oldKey)) {
+            up(positions[id]);
+        } else down(positions[id]);
+    }
+
+    /** Removes the given id, if it is in the heap */
+    public void remove(int id) {
+        if (!contains(id)) return;
+
+        int position = positions[id];
+        positions[id] = -1;
+        if (position == --size) return; // It was last, nothing needs moving
+
+        int moved = heap[size]; // Fill its spot with the last id, then move that one where it belongs
+        heap[position] = moved;
+        positions[moved] = position;
+        up(position);
+        down(positions[moved]);
+    }
+
+    /**
+     * Returns the ids of the top few keys, in order, without changing the heap. Only visits
+     * around that many ids, rather than the whole heap.
+     *
+     * @param amount Maximum amount of ids to return
+     */
+    public int[] top(int amount) {
+        int[] top = new int[Math.min(amount, size)];
+        if (top.length == 0) return top;
+
+        // Heap positions still to visit, ordered by their keys just like this heap
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) ->
+                before(keys[heap[a]], keys[heap[b]]) ? -1 : before(keys[heap[b]], keys[heap[a]]) ? 1 : 0);
+        frontier.add(0);
+
+        for (int i = 0; i < top.length; i++) {
+            int position = frontier.remove();
+            top[i] = heap[position];
+
+            int child = position * 2 + 1;
+            if (child < size) frontier.add(child);
+            if (child + 1 < size) frontier.add(child + 1);
+        }
+        return top;
+    }
+
+    private boolean before(long a, long b) {
+        return max ? a > b : a < b;
+    }
+
+    private void up(int position) {
+        int id = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(keys[id], keys[heap[parent]])) break;
+
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void down(int position) {
+        int id = heap[position];
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(keys[heap[child + 1]], keys[heap[child]])) child++;
+            if (!before(keys[heap[child]], keys[id])) break;
+
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < positions.length) return;
+
+        int newLength = Math.max(id + 1, positions.length * 2);
+        int oldLength = positions.length;
+        positions = Arrays.copyOf(positions, newLength);
+        Arrays.fill(positions, oldLength, newLength, -1);
+        keys = Arrays.copyOf(keys, newLength);
+    }
+
+}
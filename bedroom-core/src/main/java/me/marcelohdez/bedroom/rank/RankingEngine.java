@@ -0,0 +1,110 @@
+package me.marcelohdez.bedroom.rank;
+
+import me.marcelohdez.bedroom.shift.SessionRegistry;
+import me.marcelohdez.bedroom.shift.ShiftSnapshot;
+import me.marcelohdez.bedroom.shift.ShiftStats;
+import me.marcelohdez.bedroom.shift.TimePlan;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Ranks a {@link SessionRegistry}'s agents by how many orders they are behind their hourly target, without
+ * re-sorting anyone as time passes. Agents are kept in a max-heap by their deficit, which only changes when
+ * their orders or times do, or when enough time is worked for them to fall one more order behind. That time
+ * is worked out ahead and kept in a second heap, so each tick only looks at the agents whose deficit actually
+ * changed, usually none.
+ * <p>
+ * Everything must be called on the executor given to the constructor, ex: the Swing event thread.
+ */
+public class RankingEngine {
+
+    /**
+     * @param agent Name of the agent
+     * @param deficit Orders they are behind their target
+     */
+    public record Ranked(String agent, long deficit) {}
+
+    private final SessionRegistry registry;
+    private final Executor executor;
+    private final IndexedHeap byDeficit = new IndexedHeap(true); // Agents with a shift, by orders behind
+    private final IndexedHeap byNextChange = new IndexedHeap(false); // Agents by when their deficit next grows
+    private ShiftSnapshot[] snapshots = new ShiftSnapshot[16]; // Last known state of each agent
+    private int tracked = 0; // Amount of registry entries we are subscribed to
+
+    /**
+     * @param registry Registry of agents to rank
+     * @param executor Executor the engine is used from, to give it the agents' changes through
+     */
+    public RankingEngine(SessionRegistry registry, Executor executor) {
+        this.registry = registry;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts tracking agents who joined since our last call, and updates the deficits of agents who have
+     * fallen behind by now. Should be called about once a second.
+     */
+    public void tick(LocalDateTime now) {
+        while (tracked < registry.size()) {
+            int id = tracked++;
+            SessionRegistry.Entry entry = registry.get(id);
+            entry.session().subscribe(executor, snapshot -> update(id, snapshot, LocalDateTime.now()));
+            update(id, entry.session().snapshot(), now);
+        }
+
+        long nowKey = key(now);
+        while (!byNextChange.isEmpty() && byNextChange.keyOf(byNextChange.peek()) <= nowKey) {
+            int id = byNextChange.peek();
+            update(id, snapshots[id], now);
+        }
+    }
+
+    /**
+     * Returns the agents furthest behind their target, furthest first. Agents who are on target are left out.
+     *
+     * @param amount Maximum amount of agents to return
+     */
+    public Ranked[] top(int amount) {
+        int[] ids = byDeficit.top(amount);
+
+        int behind = 0;
+        while (behind < ids.length && byDeficit.keyOf(ids[behind]) > 0) behind++;
+
+        Ranked[] ranked = new Ranked[behind];
+        for (int i = 0; i < behind; i++) {
+            ranked[i] = new Ranked(registry.get(ids[i]).agent(), byDeficit.keyOf(ids[i]));
+        }
+        return ranked;
+    }
+
+    /** Recalculates an agent's deficit and when it will next grow */
+    private void update(int id, ShiftSnapshot snapshot, LocalDateTime now) {
+        if (id >= snapshots.length) snapshots = Arrays.copyOf(snapshots, Math.max(id + 1, snapshots.length * 2));
+        snapshots[id] = snapshot;
+
+        TimePlan plan = snapshot.plan();
+        if (!plan.timesChosen()) { // Nothing to rank until they choose a shift
+            byDeficit.remove(id);
+            byNextChange.remove(id);
+            return;
+        }
+
+        long deficit = ShiftStats.ordersLeftForTarget(Math.max(plan.secondsWorkedBy(now), 0), plan.target(), snapshot.orders());
+        byDeficit.put(id, deficit);
+
+        // Being one more order behind means (worked seconds * target) going over (orders + deficit) hours
+        LocalDateTime next = (plan.target() > 0) ?
+                plan.timeWhenWorked((snapshot.orders() + deficit) * 3600 / plan.target() + 1) : null;
+        if (next != null) {
+            byNextChange.put(id, Math.max(key(next), key(now) + 1)); // Always move forward
+        } else byNextChange.remove(id); // Their shift ends first
+    }
+
+    private static long key(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC); // Only used for ordering, so any offset works
+    }
+
+}
@@ -0,0 +1,81 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estimates the current pace of orders with an exponentially weighted rate, so a slow start or a recent
+ * slump shows up in the projected end of shift total, unlike the whole-shift average. Time is measured in
+ * worked seconds, so breaks do not count as slow time. Every update and estimate is O(1).
+ * <p>
+ * Not thread-safe, it should be fed and read from one thread.
+ */
+public class PaceEstimator {
+
+    private static final double TIME_CONSTANT = 30 * 60; // Worked seconds over which older orders fade
+
+    private LocalDateTime clockIn; // Clock in time of the shift being estimated, null if none yet
+    private long lastOrders;
+    private long lastWorked; // Worked seconds at our last update
+    private double decayedOrders; // Orders weighted by how recent they are, as of lastWorked
+
+    /**
+     * Records a shift's latest state. Order changes since the last snapshot count as happening now,
+     * while a new shift starts over, taking its average so far as the starting pace.
+     *
+     * @param snapshot The shift's state
+     * @param now Time the snapshot was taken
+     */
+    public void record(ShiftSnapshot snapshot, LocalDateTime now) {
+        TimePlan plan = snapshot.plan();
+        if (!plan.timesChosen()) return;
+
+        long worked = Math.max(plan.secondsWorkedBy(now), 0);
+        if (!plan.clockIn().equals(clockIn)) { // New shift, ex: recovered with orders already done
+            clockIn = plan.clockIn();
+            decayedOrders = (worked > 0) ? snapshot.orders() / (double) worked * weightSince(worked) : 0;
+        } else decayedOrders = decayedAt(worked) + (snapshot.orders() - lastOrders);
+
+        lastOrders = snapshot.orders();
+        lastWorked = worked;
+    }
+
+    /**
+     * Returns the estimated orders per hour at the given time.
+     *
+     * @param plan The shift's times
+     * @param now Time to estimate at
+     */
+    public double ordersPerHour(TimePlan plan, LocalDateTime now) {
+        if (clockIn == null || !plan.timesChosen()) return 0;
+
+        long worked = Math.max(plan.secondsWorkedBy(now), 0);
+        if (worked == 0) return 0;
+
+        // Dividing by the weight of the time worked so far keeps early estimates from being too low
+        return Math.max(decayedAt(worked) / weightSince(worked), 0) * 3600;
+    }
+
+    /**
+     * Returns how many orders the shift should end with if the current pace keeps up.
+     *
+     * @param snapshot The shift's state
+     * @param now Time to project from
+     */
+    public long projectedOrders(ShiftSnapshot snapshot, LocalDateTime now) {
+        TimePlan plan = snapshot.plan();
+        if (!plan.timesChosen()) return snapshot.orders();
+
+        long secondsLeft = plan.totalSeconds() - Math.max(plan.secondsWorkedBy(now), 0);
+        return snapshot.orders() + Math.round(ordersPerHour(plan, now) * secondsLeft / 3600);
+    }
+
+    private double decayedAt(long worked) {
+        return decayedOrders * Math.exp(-(worked - lastWorked) / TIME_CONSTANT);
+    }
+
+    /** Returns the total weight given to the given worked seconds, going back from the latest */
+    private static double weightSince(long worked) {
+        return TIME_CONSTANT * (1 - Math.exp(-worked / TIME_CONSTANT));
+    }
+
+}
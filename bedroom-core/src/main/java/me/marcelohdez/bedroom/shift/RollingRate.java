@@ -0,0 +1,99 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Orders per hour over the last 15 and 60 worked minutes, so a slump shows up long before it moves the
+ * whole-shift average. Orders are counted into a ring of one bucket per worked minute, and both windows'
+ * sums are kept as buckets come and go, so memory is constant and updates are O(1). Time is measured in
+ * worked seconds, so breaks are left out of both windows.
+ * <p>
+ * Not thread-safe, it should be fed and read from one thread.
+ */
+public class RollingRate {
+
+    public static final int SHORT_WINDOW = 15; // Minutes
+    public static final int LONG_WINDOW = 60; // Minutes, also the amount of buckets
+
+    private final int[] buckets = new int[LONG_WINDOW]; // Orders done in each worked minute
+    private long minute = 0; // Worked minute of our newest bucket
+    private long shortSum = 0;
+    private long longSum = 0;
+
+    private LocalDateTime clockIn; // Clock in time of the shift being tracked, null if none yet
+    private long lastOrders;
+    private long startWorked; // Worked seconds when we started tracking this shift, as we know nothing before
+
+    /**
+     * Records a shift's latest state, order changes since the last snapshot count as happening now.
+     *
+     * @param snapshot The shift's state
+     * @param now Time the snapshot was taken
+     */
+    public void record(ShiftSnapshot snapshot, LocalDateTime now) {
+        TimePlan plan = snapshot.plan();
+        if (!plan.timesChosen()) return;
+
+        long worked = Math.max(plan.secondsWorkedBy(now), 0);
+        if (!plan.clockIn().equals(clockIn)) { // New shift, ex: recovered with orders already done
+            clockIn = plan.clockIn();
+            startWorked = worked;
+            minute = worked / 60;
+            Arrays.fill(buckets, 0);
+            shortSum = longSum = 0;
+        } else {
+            advanceTo(worked / 60);
+            int delta = (int) (snapshot.orders() - lastOrders);
+            buckets[(int) (minute % LONG_WINDOW)] += delta;
+            shortSum += delta;
+            longSum += delta;
+        }
+
+        lastOrders = snapshot.orders();
+    }
+
+    /**
+     * Returns orders per hour over the last few worked minutes, or NaN if no time has been worked since we
+     * started tracking this shift.
+     *
+     * @param minutes {@link #SHORT_WINDOW} or {@link #LONG_WINDOW}
+     * @param plan The shift's times
+     * @param now Time to measure at
+     */
+    public double ordersPerHour(int minutes, TimePlan plan, LocalDateTime now) {
+        if (clockIn == null || !plan.timesChosen()) return Double.NaN;
+
+        long worked = Math.max(plan.secondsWorkedBy(now), 0);
+        advanceTo(worked / 60);
+
+        // Our windows hold their older minutes in full, plus however much of the newest one has gone by
+        long seconds = Math.min((minutes - 1) * 60L + worked % 60, worked - startWorked);
+        if (seconds <= 0) return Double.NaN;
+
+        long orders = (minutes == SHORT_WINDOW) ? shortSum : longSum;
+        return Math.max(orders, 0) * 3600.0 / seconds;
+    }
+
+    /** Moves our newest bucket up to the given worked minute, emptying the buckets it passes */
+    private void advanceTo(long newMinute) {
+        if (newMinute <= minute) return;
+
+        if (newMinute - minute >= LONG_WINDOW) { // Every bucket is too old
+            Arrays.fill(buckets, 0);
+            shortSum = longSum = 0;
+            minute = newMinute;
+            return;
+        }
+
+        while (minute < newMinute) {
+            minute++;
+            if (minute >= SHORT_WINDOW) // The minute leaving the short window
+                shortSum -= buckets[(int) ((minute - SHORT_WINDOW) % LONG_WINDOW)];
+            int slot = (int) (minute % LONG_WINDOW);
+            longSum -= buckets[slot]; // The oldest minute leaves the long window, and its bucket is reused
+            buckets[slot] = 0;
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds many independent shift sessions by agent name, so a supervisor can track a whole team in one process.
+ * Agents keep the position they joined in, letting tables show them as rows without any lookups.
+ */
+public class SessionRegistry {
+
+    /**
+     * @param agent Name of the agent
+     * @param session The agent's shift
+     */
+    public record Entry(String agent, ShiftSession session) {}
+
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    private final List<Entry> entries = new CopyOnWriteArrayList<>(); // In the order agents joined
+
+    /** Returns the given agent's session, creating it if this is the first time we hear of them */
+    public ShiftSession getOrCreate(String agent) {
+        return byName.computeIfAbsent(agent, name -> {
+            Entry entry = new Entry(name, new ShiftSession());
+            entries.add(entry);
+            return entry;
+        }).session();
+    }
+
+    /** Returns the given agent's session, or null if we have not heard of them */
+    public ShiftSession get(String agent) {
+        Entry entry = byName.get(agent);
+        return (entry != null) ? entry.session() : null;
+    }
+
+    /** Returns the entry which joined at the given position, from 0 to {@link #size()} - 1 */
+    public Entry get(int index) {
+        return entries.get(index);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,135 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds a shift's orders and time plan. All methods are thread-safe and lock-free, so orders
+ * may be recorded from any thread (key presses, scripts, file watchers...) without hopping to the EDT.
+ * Anything showing the session should subscribe to it, getting coalesced snapshots through its own executor.
+ */
+public class ShiftSession {
+
+    // Plan, orders and last order change are replaced together, so a snapshot never mixes two states
+    private final AtomicReference<ShiftSnapshot> state = new AtomicReference<>(new ShiftSnapshot(TimePlan.NONE, 0, 0));
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public TimePlan getPlan() {
+        return state.get().plan();
+    }
+
+    public void setShift(LocalDateTime start, LocalDateTime end) {
+        updatePlan(p -> p.withShift(start, end));
+    }
+
+    public void setBreak(LocalDateTime start, LocalDateTime end) {
+        updatePlan(p -> p.withBreak(start, end));
+    }
+
+    public void setTarget(int target) {
+        updatePlan(p -> p.withTarget(target));
+    }
+
+    public long getOrders() {
+        return state.get().orders();
+    }
+
+    public long getLastOrderChange() {
+        return state.get().lastOrderChange();
+    }
+
+    /**
+     * Adds the given amount of orders, or removes them if negative.
+     *
+     * @param amount Amount of orders to add
+     * @return Whether orders could be changed, as they only can while clocked in and not on break
+     */
+    public boolean addOrders(long amount) {
+        return updateOrders(s -> s.orders() + amount, true);
+    }
+
+    /**
+     * Sets orders to the given amount.
+     *
+     * @param amount New amount of orders
+     * @param changeLastOrderTime Whether this counts as an order change, for the last order change time
+     * @return Whether orders could be changed, as they only can while clocked in and not on break
+     */
+    public boolean setOrders(long amount, boolean changeLastOrderTime) {
+        return updateOrders(s -> amount, changeLastOrderTime);
+    }
+
+    public ShiftSnapshot snapshot() {
+        return state.get();
+    }
+
+    private void updatePlan(UnaryOperator<TimePlan> change) {
+        state.updateAndGet(s -> new ShiftSnapshot(change.apply(s.plan()), s.orders(), s.lastOrderChange()));
+        publish();
+    }
+
+    /** Changes orders if the plan accepts them now, checking against the same state which gets replaced */
+    private boolean updateOrders(ToLongFunction<ShiftSnapshot> newOrders, boolean changeLastOrderTime) {
+        ShiftSnapshot current, changed;
+        do {
+            current = state.get();
+            if (!current.plan().acceptsOrdersAt(LocalDateTime.now())) return false;
+
+            changed = new ShiftSnapshot(current.plan(), newOrders.applyAsLong(current),
+                    changeLastOrderTime ? System.currentTimeMillis() : current.lastOrderChange());
+        } while (!state.compareAndSet(current, changed));
+
+        publish();
+        return true;
+    }
+
+    /**
+     * Subscribes a listener to this session's changes. The listener is given snapshots through the given
+     * executor, and any changes made while a snapshot is still waiting to be delivered are coalesced into it,
+     * so the listener is never flooded no matter how quickly orders come in.
+     *
+     * @param executor Executor to notify the listener through, ex: SwingUtilities::invokeLater
+     * @param listener Listener to notify
+     * @return A Runnable which unsubscribes the listener once run
+     */
+    public Runnable subscribe(Executor executor, Consumer<ShiftSnapshot> listener) {
+        Subscription s = new Subscription(executor, listener);
+        subscriptions.add(s);
+        return () -> subscriptions.remove(s);
+    }
+
+    private void publish() {
+        for (Subscription s : subscriptions) s.notifyChanged();
+    }
+
+    private class Subscription {
+
+        private final Executor executor;
+        private final Consumer<ShiftSnapshot> listener;
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+
+        private Subscription(Executor executor, Consumer<ShiftSnapshot> listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        private void notifyChanged() {
+            if (pending.compareAndSet(false, true)) { // Only queue a delivery if one is not queued already
+                executor.execute(() -> {
+                    pending.set(false); // Clear first, so changes made while delivering queue a new delivery
+                    listener.accept(snapshot());
+                });
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,10 @@
+package me.marcelohdez.bedroom.shift;
+
+/**
+ * A consistent view of a shift session at one point in time.
+ *
+ * @param plan The session's time plan
+ * @param orders Orders taken
+ * @param lastOrderChange Time of last order change, in milliseconds, 0 if orders have not changed
+ */
+public record ShiftSnapshot(TimePlan plan, long orders, long lastOrderChange) {}
@@ -0,0 +1,78 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+
+/**
+ * A shift's stats at one point in time, calculated from a {@link ShiftSnapshot} so that the window,
+ * the command line and anything else show the same numbers.
+ *
+ * @param secondsWorked Seconds worked so far, not counting the break
+ * @param totalSeconds Seconds to be worked in the whole shift, not counting the break
+ * @param orders Orders done so far
+ * @param target Target orders per hour
+ */
+public record ShiftStats(long secondsWorked, long totalSeconds, long orders, int target) {
+
+    private static final DecimalFormat twoDecs = new DecimalFormat("#.00");
+
+    /**
+     * Calculates the stats of the given snapshot, whose shift times must be chosen.
+     *
+     * @param snapshot Shift to calculate the stats of
+     * @param now Time to calculate the stats at
+     */
+    public static ShiftStats of(ShiftSnapshot snapshot, LocalDateTime now) {
+        TimePlan plan = snapshot.plan();
+        return new ShiftStats(plan.secondsWorkedBy(now), plan.totalSeconds(), snapshot.orders(), plan.target());
+    }
+
+    /** Returns the amount of orders needed to meet our target by the end of the shift */
+    public int ordersNeeded() {
+        return Math.round(target * (totalSeconds / 3600f));
+    }
+
+    /** Returns how many orders are left to be on target at this point of the shift */
+    public int ordersLeftForTarget() {
+        return (int) ordersLeftForTarget(secondsWorked, target, orders);
+    }
+
+    /**
+     * Returns how many orders are left to be on target after the given seconds worked. Worked out in whole
+     * numbers so it is exact, and everything showing or ranking it agrees to the order.
+     */
+    public static long ordersLeftForTarget(long secondsWorked, int target, long orders) {
+        long behind = secondsWorked * target - orders * 3600; // In orders times 3600
+        return (behind > 0) ? (behind + 3599) / 3600 : 0;
+    }
+
+    public float ordersPerHour() {
+        return orders * 3600f / secondsWorked;
+    }
+
+    /** Returns orders per hour with two decimals, ex: "4.50/hr" */
+    public String ordersPerHourText() {
+        return formatTwoDecimals(ordersPerHour()) + "/hr";
+    }
+
+    /** Returns how much of the shift has been worked, from 0 to 100 */
+    public float percentDone() {
+        return (secondsWorked / (float) totalSeconds) * 100f;
+    }
+
+    /**
+     * Rounds the given orders per hour to two decimals, the way they are saved to history. Values which are
+     * not finite, as no time was worked, become NaN, which history leaves out of averages.
+     */
+    public static float roundTwoDecimals(float value) {
+        return Float.isFinite(value) ? Math.round(value * 100f) / 100f : Float.NaN;
+    }
+
+    /** Formats the given value with two decimals, the way orders per hour are shown */
+    public static String formatTwoDecimals(float value) {
+        synchronized (twoDecs) { // DecimalFormat is not thread-safe
+            return twoDecs.format(value);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * An immutable plan of a shift's times and hourly target. Sessions swap whole plans at once,
+ * so a plan read from any thread is never half-updated.
+ *
+ * @param clockIn Clock in time, null if no shift was chosen
+ * @param clockOut Clock out time, null if no shift was chosen
+ * @param breakStart Break start time, null if no break was chosen
+ * @param breakEnd Break end time, null if no break was chosen
+ * @param target Target orders per hour
+ */
+public record TimePlan(LocalDateTime clockIn, LocalDateTime clockOut,
+                       LocalDateTime breakStart, LocalDateTime breakEnd, int target) {
+
+    /** Plan used before any shift times are chosen */
+    public static final TimePlan NONE = new TimePlan(null, null, null, null, 0);
+
+    public TimePlan withShift(LocalDateTime start, LocalDateTime end) {
+        return new TimePlan(start, end, breakStart, breakEnd, target);
+    }
+
+    public TimePlan withBreak(LocalDateTime start, LocalDateTime end) {
+        return new TimePlan(clockIn, clockOut, start, end, target);
+    }
+
+    public TimePlan withTarget(int newTarget) {
+        return new TimePlan(clockIn, clockOut, breakStart, breakEnd, newTarget);
+    }
+
+    public boolean timesChosen() {
+        return clockOut != null;
+    }
+
+    public boolean breakTimesChosen() {
+        return breakEnd != null;
+    }
+
+    /** Returns whether the clock in and out times are on different days */
+    public boolean isOvernight() {
+        // If clock in time is 1 day before clock out time, then it is an overnight shift
+        return timesChosen() && clockIn.getDayOfWeek().plus(1) == clockOut.getDayOfWeek();
+    }
+
+    public boolean clockInPassed(LocalDateTime now) {
+        return timesChosen() && now.isAfter(clockIn);
+    }
+
+    public boolean isInBreak(LocalDateTime now) {
+        return breakTimesChosen() && now.isAfter(breakStart) && now.isBefore(breakEnd);
+    }
+
+    /** Returns whether orders can be changed at the given time, as they only can while clocked in and not on break */
+    public boolean acceptsOrdersAt(LocalDateTime now) {
+        return clockInPassed(now) && !isInBreak(now);
+    }
+
+    /** Returns the amount of seconds to be worked in the whole shift, not counting the break */
+    public long totalSeconds() {
+        return secondsWorkedBy(clockOut);
+    }
+
+    /**
+     * Get time worked from clock in time to the specified time, in seconds.
+     *
+     * @param till Time to calculate off of
+     * @return The amount of seconds worked from clock in time to chosen time
+     */
+    public long secondsWorkedBy(LocalDateTime till) {
+
+        if (till.isAfter(clockOut)) { // If time is beyond clock out time, only measure up to clock out time:
+            return secondsWorkedBy(clockOut);
+        }
+
+        if (breakEnd == null) { // If there is no break:
+            return clockIn.until(till, ChronoUnit.SECONDS); // Get seconds until the time chosen
+        } else {
+            if (till.isBefore(breakStart)) { // If we have not started our break:
+                return clockIn.until(till, ChronoUnit.SECONDS); // Get seconds until the time chosen
+            } else if (till.isBefore(breakEnd)) { // If we are in our break:
+                return clockIn.until(breakStart, ChronoUnit.SECONDS);
+            } else { // If we have passed our break:
+                // Return the time between clocking in and wanted time minus the break length
+                return clockIn.until(till, ChronoUnit.SECONDS) -
+                        breakStart.until(breakEnd, ChronoUnit.SECONDS);
+            }
+        }
+
+    }
+
+    /**
+     * Does the opposite of {@link #secondsWorkedBy(LocalDateTime)}, finding when the given amount of
+     * seconds will have been worked.
+     *
+     * @param seconds Seconds worked, not counting the break
+     * @return The earliest time by which that many seconds were worked, or null if the shift is too short
+     */
+    public LocalDateTime timeWhenWorked(long seconds) {
+        if (seconds > totalSeconds()) return null;
+
+        LocalDateTime time = clockIn.plusSeconds(seconds);
+        if (breakEnd == null || !time.isAfter(breakStart)) return time; // Before any break
+
+        return time.plusSeconds(breakStart.until(breakEnd, ChronoUnit.SECONDS)); // Skip over the break
+    }
+
+}
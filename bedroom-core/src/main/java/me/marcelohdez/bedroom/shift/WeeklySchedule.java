@@ -0,0 +1,151 @@
+package me.marcelohdez.bedroom.shift;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * An agent's usual shift on each day of the week, so Bedroom can work out today's shift by itself instead of
+ * asking for it. Days without a shift are left out. Immutable, changes return a new schedule.
+ * <p>
+ * Written as text by {@link #toString()}, ex: "MONDAY 09:00-17:00 12:00-12:30 9; FRIDAY 22:00-06:00 - 8",
+ * where the times are the shift's, then the break's ("-" if none), then the target.
+ */
+public final class WeeklySchedule {
+
+    public static final WeeklySchedule EMPTY = new WeeklySchedule(new EnumMap<>(DayOfWeek.class));
+
+    /**
+     * A weekday's shift. Times earlier than the one before them are on the next day, ex: an overnight shift.
+     *
+     * @param start Clock in time, on the weekday
+     * @param end Clock out time
+     * @param breakStart Break start time, null if there is no break
+     * @param breakEnd Break end time, null if there is no break
+     * @param target Target orders per hour
+     */
+    public record DayShift(LocalTime start, LocalTime end, LocalTime breakStart, LocalTime breakEnd, int target) {
+
+        /** Returns this shift's plan when it starts on the given day */
+        public TimePlan planOn(LocalDate day) {
+            LocalDateTime clockIn = day.atTime(start);
+            LocalDateTime clockOut = after(clockIn, end);
+            if (breakStart == null) return new TimePlan(clockIn, clockOut, null, null, target);
+
+            LocalDateTime breakIn = after(clockIn, breakStart);
+            return new TimePlan(clockIn, clockOut, breakIn, after(breakIn, breakEnd), target);
+        }
+
+        /** Returns whether the shift is longer than nothing, and its break (if any) is inside of it */
+        public boolean isValid() {
+            if (start.equals(end) || target < 1) return false;
+            if (breakStart == null) return breakEnd == null;
+
+            TimePlan plan = planOn(LocalDate.EPOCH);
+            return breakEnd != null && plan.breakStart().isAfter(plan.clockIn()) &&
+                    plan.breakEnd().isBefore(plan.clockOut());
+        }
+
+        /** Returns the first time after the given one which is at the given time of day */
+        private static LocalDateTime after(LocalDateTime from, LocalTime time) {
+            LocalDateTime sameDay = from.toLocalDate().atTime(time);
+            return sameDay.isAfter(from) ? sameDay : sameDay.plusDays(1);
+        }
+
+    }
+
+    private final EnumMap<DayOfWeek, DayShift> shifts;
+
+    private WeeklySchedule(EnumMap<DayOfWeek, DayShift> shifts) {
+        this.shifts = shifts;
+    }
+
+    /** Returns the shift of the given weekday, or null if it has none */
+    public DayShift get(DayOfWeek day) {
+        return shifts.get(day);
+    }
+
+    /**
+     * Returns a copy of this schedule with the given weekday's shift changed.
+     *
+     * @param shift The weekday's new shift, null if it should have none
+     */
+    public WeeklySchedule with(DayOfWeek day, DayShift shift) {
+        EnumMap<DayOfWeek, DayShift> changed = new EnumMap<>(shifts);
+        if (shift != null) {
+            changed.put(day, shift);
+        } else changed.remove(day);
+        return new WeeklySchedule(changed);
+    }
+
+    public boolean isEmpty() {
+        return shifts.isEmpty();
+    }
+
+    /**
+     * Returns the plan of the shift which should be tracked at the given time: yesterday's if it has not ended
+     * yet (ex: an overnight shift), else today's if it has not ended yet.
+     *
+     * @return The shift's plan, or null if there is no such shift
+     */
+    public TimePlan resolve(LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        for (LocalDate day : new LocalDate[]{today.minusDays(1), today}) {
+            DayShift shift = shifts.get(day.getDayOfWeek());
+            if (shift == null) continue;
+
+            TimePlan plan = shift.planOn(day);
+            if (now.isBefore(plan.clockOut())) return plan;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner("; ");
+        for (Map.Entry<DayOfWeek, DayShift> entry : shifts.entrySet()) {
+            DayShift shift = entry.getValue();
+            sj.add("$d $s-$e $b $t"
+                    .replace("$d", entry.getKey().name())
+                    .replace("$s", shift.start().toString())
+                    .replace("$e", shift.end().toString())
+                    .replace("$b", shift.breakStart() != null ? shift.breakStart() + "-" + shift.breakEnd() : "-")
+                    .replace("$t", String.valueOf(shift.target())));
+        }
+        return sj.toString();
+    }
+
+    /**
+     * Reads a schedule written by {@link #toString()}.
+     *
+     * @throws IllegalArgumentException If the text is not a schedule, or one of its shifts is not valid
+     * @throws java.time.format.DateTimeParseException If one of its times can not be read
+     */
+    public static WeeklySchedule parse(String text) {
+        EnumMap<DayOfWeek, DayShift> shifts = new EnumMap<>(DayOfWeek.class);
+        for (String day : text.split(";")) {
+            if (day.isBlank()) continue;
+
+            String[] parts = day.strip().split(" ");
+            if (parts.length != 4) throw new IllegalArgumentException("Invalid scheduled day: " + day);
+
+            String[] shift = parts[1].split("-");
+            String[] breakTimes = parts[2].equals("-") ? null : parts[2].split("-");
+            if (shift.length != 2 || (breakTimes != null && breakTimes.length != 2))
+                throw new IllegalArgumentException("Invalid scheduled day: " + day);
+
+            DayShift dayShift = new DayShift(LocalTime.parse(shift[0]), LocalTime.parse(shift[1]),
+                    breakTimes != null ? LocalTime.parse(breakTimes[0]) : null,
+                    breakTimes != null ? LocalTime.parse(breakTimes[1]) : null,
+                    Integer.parseInt(parts[3]));
+            if (!dayShift.isValid()) throw new IllegalArgumentException("Invalid scheduled shift: " + day);
+            shifts.put(DayOfWeek.valueOf(parts[0]), dayShift);
+        }
+        return new WeeklySchedule(shifts);
+    }
+
+}
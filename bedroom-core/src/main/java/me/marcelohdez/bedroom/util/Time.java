@@ -41,9 +41,9 @@ public final class Time { // Time operations
     public static void appendReadableTimeTo(StringBuilder sb, int h, int m, int s) {
 
         if (h > 0) { // If we have hours to show, show hours, and put a zero behind minutes under 10
-            sb.append(h).append(":")
-                    .append(Ops.addZeroUnder10(m))
-                    .append(":");
+            sb.append(h).append(":");
+            if (m < 10) sb.append("0");
+            sb.append(m).append(":");
             if (s < 10) sb.append("0");
         } else if (m > 0) { // If we have minutes to show, show minutes, and put a zero behind seconds under 10.
             sb.append(m).append(":");
@@ -1,63 +1,199 @@
 package me.marcelohdez.bedroom;
 
+import me.marcelohdez.bedroom.dialog.WindowCache;
 import me.marcelohdez.bedroom.dialog.alert.AlertDialog;
-import me.marcelohdez.bedroom.dialog.alert.YesNoDialog;
+import me.marcelohdez.bedroom.history.HistoryStore;
+import me.marcelohdez.bedroom.history.QuantileSketch;
+import me.marcelohdez.bedroom.history.ShiftHistory;
+import me.marcelohdez.bedroom.history.ShiftKey;
+import me.marcelohdez.bedroom.ingest.OrderServer;
+import me.marcelohdez.bedroom.ingest.SpoolWatcher;
+import me.marcelohdez.bedroom.ingest.SupervisorLineHandler;
+import me.marcelohdez.bedroom.prefs.FilePreferencesFactory;
 import me.marcelohdez.bedroom.main.BedroomWindow;
+import me.marcelohdez.bedroom.main.RefreshTimer;
+import me.marcelohdez.bedroom.main.ShutdownCoordinator;
+import me.marcelohdez.bedroom.main.StartupTrace;
+import me.marcelohdez.bedroom.shift.PaceEstimator;
+import me.marcelohdez.bedroom.shift.RollingRate;
+import me.marcelohdez.bedroom.shift.SessionRegistry;
+import me.marcelohdez.bedroom.shift.ShiftSession;
+import me.marcelohdez.bedroom.shift.ShiftStats;
+import me.marcelohdez.bedroom.shift.TimePlan;
+import me.marcelohdez.bedroom.util.FrameThrottle;
+import me.marcelohdez.bedroom.util.Reloadable;
 import me.marcelohdez.bedroom.util.Settings;
+import me.marcelohdez.bedroom.util.StartupItemLauncher;
 import me.marcelohdez.bedroom.util.Theme;
 import me.marcelohdez.bedroom.util.Time;
 import me.marcelohdez.bedroom.main.UI;
+import me.marcelohdez.bedroom.supervisor.SupervisorWindow;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.FileWriter;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
-import java.util.Locale;
-import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.prefs.Preferences;
 
 public class Bedroom {
 
     // ======= Global Variables =======
     public static final String VERSION = "3.2-DEV";
-    public static final Preferences userPrefs = Preferences.userRoot(); // User preferences directory
+    private static final StartupTrace startup = new StartupTrace(); // Times startup, created first to time it all
+    public static final Preferences userPrefs = // User preferences file, read before anything needs it
+            startup.call("preferences", () -> new FilePreferencesFactory().userRoot());
 
     // ======= Variables =======
     private static BedroomWindow wnd; // Main window
+    private static final RefreshTimer refresher = new RefreshTimer(Bedroom::update);
+    private static boolean traceRefresh = false; // Print refresh timer wakeups upon exiting
+    private static boolean traceStartup = false; // Print how long each startup phase took
+    private static boolean exitWhenShown = false; // Print when our window was shown then exit, for benchmarks
+
+    // Current shift's orders and times, which may be changed from any thread
+    private static final ShiftSession session = new ShiftSession();
+    // Saves orders and updates the window at most once per frame after the session changes
+    private static final FrameThrottle sessionRefresh = new FrameThrottle(Bedroom::saveOrders);
+    private static OrderServer orderServer; // Lets scripts add orders, if enabled
+    private static SpoolWatcher spoolWatcher; // Reads orders from files in the order folder, if enabled
+
+    // Shift stats, calculated on every update
+    private static ShiftStats stats = new ShiftStats(0, 0, 0, 0);
+    private static final PaceEstimator pace = new PaceEstimator(); // Recent pace, fed on the event thread
+    private static final RollingRate recentRate = new RollingRate(); // Last 15/60 minutes, likewise
+
+    // Shift performance history (key: shift clock in time and sequence, value: float of orders per hour)
+    private static ShiftHistory shiftHistory;
+    private static CompletableFuture<LoadedHistory> historyLoad; // Shift history being read in the background
+    private static QuantileSketch historySketch = new QuantileSketch(); // Percentiles of shiftHistory's values
+    private static ShutdownCoordinator shutdown; // Saves our state upon exiting, however we exit
 
-    // Time values
-    private static LocalDateTime clockInTime, clockOutTime, breakInTime, breakOutTime;
+    public static void main(String[] args) {
 
-    // Shift stats
-    private static long lastOrderChange = 0; // Time of last order change, in milliseconds
-    private static int orders = 0;
-    private static int target; // Target orders/hr
-    private static int ordersNeeded = 0;
-    private static long secondsWorked = 0;
-    private static boolean isOvernight = false;
+        boolean supervisor = false;
+        boolean cdsTraining = false;
+        for (String arg : args) {
+            if (arg.equals("--trace-refresh")) traceRefresh = true;
+            if (arg.equals("--supervisor")) supervisor = true;
+            if (arg.equals("--trace-startup")) traceStartup = true;
+            if (arg.equals("--exit-when-shown")) exitWhenShown = true;
+            if (arg.equals("--cds-training")) cdsTraining = true;
+        }
 
-    // Shift performance history (key: shift end date, value: float of orders per hour)
-    private static TreeMap<LocalDate, Float> shiftHistory;
+        if (supervisor) { // Track many agents' shifts instead of our own
+            doLAFStuff();
+            SwingUtilities.invokeLater(Bedroom::startSupervisor);
+            return;
+        }
 
-    private static final DecimalFormat twoDecs = new DecimalFormat("#.00");
+        if (cdsTraining) { // Only load what startup would, see build.gradle's installCds task
+            trainStartup();
+            return;
+        }
 
-    public static void main(String[] args) {
+        shutdown = new ShutdownCoordinator(Bedroom::getOrders, userPrefs, Settings::getHistoryStore);
+
+        session.subscribe(SwingUtilities::invokeLater, snapshot -> {
+            pace.record(snapshot, LocalDateTime.now());
+            recentRate.record(snapshot, LocalDateTime.now());
+            sessionRefresh.request();
+        });
+
+        // History only needs preferences, so it is read in the background while the look and feel is set
+        historyLoad = startup.callAsync("history", Bedroom::readShiftHistory);
+        CompletableFuture<Void> history =
+                historyLoad.thenAccept(loaded -> SwingUtilities.invokeLater(() -> useShiftHistory(loaded)));
+        startup.run("look and feel", Bedroom::doLAFStuff);
+
+        CompletableFuture<Void> rest = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            startup.run("window", Bedroom::init); // Our first update starts the refresh timer, if needed
+
+            // Queued after the window's clock in dialog, so agents can clock in as soon as possible
+            SwingUtilities.invokeLater(() -> {
+                startup.run("order inputs", () -> {
+                    reloadOrderServer();
+                    reloadSpoolWatcher();
+                });
+                // Build the settings and history windows ahead of time, so they open instantly
+                SwingUtilities.invokeLater(() -> startup.run("window cache", WindowCache::warmUp));
+                openStartupItems().whenComplete((r, e) -> {
+                    startup.mark("startup items opened");
+                    rest.complete(null);
+                });
+            });
+        });
+
+        if (traceStartup) CompletableFuture.allOf(history, rest)
+                .thenRun(() -> SwingUtilities.invokeLater(() -> System.out.println(startup.report())));
+
+    }
+
+    /** Records something happening during startup, for the "--trace-startup" flag */
+    public static void markStartup(String name) {
+        startup.mark(name);
+    }
+
+    /** Called once our window is first shown, which "--exit-when-shown" startup benchmarks wait for */
+    public static void windowShown() {
+        startup.mark("window shown");
+        if (exitWhenShown) {
+            System.out.println("Window shown $tms after process start"
+                    .replace("$t", String.valueOf(StartupTrace.millisSinceProcessStart())));
+            System.exit(0);
+        }
+    }
 
+    /**
+     * Goes through startup without showing anything, so "--cds-training" runs load the classes a real startup
+     * would for build.gradle's class data sharing archive. Needs no display, as it runs while building.
+     */
+    private static void trainStartup() {
+        useShiftHistory(readShiftHistory());
         doLAFStuff();
-        SwingUtilities.invokeLater(Bedroom::openStartupItems);
-        SwingUtilities.invokeLater(Bedroom::loadShiftHistory);
-        init();
 
-        // Create a timer to run every second, updating the time
-        new Timer(1000, e -> update()).start();
+        try {
+            SwingUtilities.invokeAndWait(() -> { // Lay out and paint our window's contents, as init() would
+                UI ui = new UI(null);
+                ui.setSize(ui.getPreferredSize());
+                ui.validate();
+
+                BufferedImage image = new BufferedImage(Math.max(ui.getWidth(), 1), Math.max(ui.getHeight(), 1),
+                        BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = image.createGraphics();
+                ui.printAll(g);
+                g.dispose();
+            });
+        } catch (InterruptedException | InvocationTargetException e) {
+            e.printStackTrace();
+        }
+
+        System.exit(0); // The archive is written as we exit
+    }
+
+    private static void startSupervisor() {
+        SessionRegistry registry = new SessionRegistry();
+        int port = Settings.getScriptOrdersPort();
+
+        try { // Lives as long as we do, so it is never closed
+            new OrderServer(new SupervisorLineHandler(registry), port);
+        } catch (IOException e) {
+            e.printStackTrace();
+            new AlertDialog(null, """
+                    Bedroom was unable to start
+                    supervisor mode, as port
+                    $p is not available.""".replace("$p", String.valueOf(port)));
+            System.exit(1);
+        }
 
+        new SupervisorWindow(registry, port);
     }
 
     private static void doLAFStuff() {
@@ -119,9 +255,7 @@ public class Bedroom {
     private static void init() {
         if ((Settings.isCrashRecoveryEnabled() && isInSavedShift())) { // Recover from crash
             recoverShift();
-            // Update now to not wait for next second as it is updated at the end of the update method
-            secondsWorked = secondsWorkedBy(LocalDateTime.now());
-        }
+        } else useScheduledShift(); // Skips choosing times if today's shift is scheduled
 
         wnd = new BedroomWindow(); // Create window
         update(); // Update stats etc
@@ -138,6 +272,27 @@ public class Bedroom {
                     LocalDateTime.parse(userPrefs.get("breakEnd", "")));
     }
 
+    /** Uses the shift of the user's weekly schedule which has not ended yet, if there is one */
+    private static void useScheduledShift() {
+        TimePlan plan = Settings.getSchedule().resolve(LocalDateTime.now());
+        if (plan == null || wasClockedOutOf(plan)) return; // Let the user choose times instead
+
+        setShift(plan.clockIn(), plan.clockOut());
+        setTarget(plan.target());
+        setOrders(0, false); // Saved into preferences in case of a crash, like choosing times does
+        if (plan.breakTimesChosen()) setBreak(plan.breakStart(), plan.breakEnd());
+    }
+
+    /** Returns whether the given plan's shift was already clocked out of, as clocking out saves its end time */
+    private static boolean wasClockedOutOf(TimePlan plan) {
+        try {
+            return plan.clockIn().equals(LocalDateTime.parse(userPrefs.get("shiftStart", ""))) &&
+                    !LocalDateTime.parse(userPrefs.get("shiftEnd", "")).isAfter(LocalDateTime.now());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
     private static boolean isInSavedShift() {
 
         try { // Try to parse:
@@ -158,8 +313,8 @@ public class Bedroom {
         try { // Try to parse:
 
             // Return if last break set was inside our shift
-            return clockInTime.isBefore(LocalDateTime.parse(userPrefs.get("breakStart", ""))) &&
-                    clockOutTime.isAfter(LocalDateTime.parse(userPrefs.get("breakEnd", "")));
+            return getClockInTime().isBefore(LocalDateTime.parse(userPrefs.get("breakStart", ""))) &&
+                    getClockOutTime().isAfter(LocalDateTime.parse(userPrefs.get("breakEnd", "")));
 
         } catch (DateTimeParseException e) {
             // If unable to parse just return false
@@ -168,101 +323,195 @@ public class Bedroom {
 
     }
 
-    private static void loadShiftHistory() {
+    /** Shift history and its percentiles, as read in the background */
+    private record LoadedHistory(ShiftHistory history, QuantileSketch sketch) {}
+
+    /** Reads shift history on the current thread, returning null if it could not be read */
+    private static LoadedHistory readShiftHistory() {
         try { // Try to load shift history
-            shiftHistory = Settings.loadShiftHistory();
+            ShiftHistory history = Settings.loadShiftHistory();
+            return new LoadedHistory(history, Settings.getHistoryStore().loadSketch(history));
         } catch (NumberFormatException e) { // If unable to load due to NumberFormatException show error:
-            new AlertDialog(null, """
+            SwingUtilities.invokeLater(() -> new AlertDialog(null, """
                     Bedroom was unable to load
                     your past shift history as
                     a character loaded was not
                     a number. Please check
-                    your history file.""");
+                    your history file."""));
+            return null;
         }
     }
 
-    private static void openStartupItems() {
-        String[] list = Settings.getStartupItemsList();
+    /** Starts using the shift history read in the background, on the event thread. Only the first call counts */
+    private static void useShiftHistory(LoadedHistory loaded) {
+        if (loaded == null || Settings.isDoneLoadingShiftHistory()) return;
+
+        shiftHistory = loaded.history();
+        historySketch = loaded.sketch();
+        Settings.setDoneLoadingShiftHistory();
+        if (shiftHistory != null && shutdown != null) addUnsavedShifts(); // Not while training, see main
+    }
 
-        for (String location : list) {
-            if (!location.isEmpty()) {
-                openItem(location);
+    /**
+     * Adds back shifts which were clocked out of but could not be written to the history file, ex: as saving
+     * took too long upon exiting. They stay in preferences until the history is saved with them.
+     */
+    private static void addUnsavedShifts() {
+        String unsaved = userPrefs.get(ShutdownCoordinator.UNSAVED_SHIFTS, "");
+        boolean added = false;
+        for (String shift : unsaved.split(", ")) {
+            int equals = shift.lastIndexOf('=');
+            if (equals < 0) continue;
+
+            try {
+                ShiftKey key = ShiftKey.parse(shift.substring(0, equals));
+                float ordersPerHour = Float.parseFloat(shift.substring(equals + 1));
+                Float saved = shiftHistory.get(key);
+                if (saved != null && saved == ordersPerHour) continue; // It was saved after all
+
+                shiftHistory.add(key.start(), ordersPerHour); // After any other shift which took its key
+                historySketch.add(ordersPerHour);
+                added = true;
+            } catch (DateTimeParseException | NumberFormatException e) {
+                e.printStackTrace();
             }
         }
+
+        if (added) {
+            shutdown.historyChanged(shiftHistory, historySketch);
+        } else userPrefs.remove(ShutdownCoordinator.UNSAVED_SHIFTS); // Every shift is in the history file
     }
 
-    private static void openItem(String loc) {
-        File workApp = new File(loc);
-        if (!loc.toLowerCase(Locale.ROOT).endsWith(".jar") || new YesNoDialog(null, """
-                        For safety reasons, Bedroom does not
-                        automatically open .jar files so users
-                        do not create an endless loop of
-                        Bedroom processes, is this startup item
-                        ok to run?:
-                        
-                        """ + workApp.getName()).accepted()) {
-
-            if (workApp.exists()) {
-                try {
-                    Desktop.getDesktop().open(workApp);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            } else new AlertDialog(wnd, """
-                    One of your startup items was
-                    not able to be started as it
-                    no longer exists. Please go to
-                    Settings > Manage Startup Items.""");
+    /**
+     * Opens startup items in the background, then tells the user about any which could not be opened.
+     *
+     * @return Completed once every item has opened or timed out
+     */
+    private static CompletableFuture<Void> openStartupItems() {
+        return new StartupItemLauncher().launch(Settings.getStartupItemsList()).thenAccept(problems -> {
+            if (!problems.isEmpty()) SwingUtilities.invokeLater(() -> new AlertDialog(wnd, """
+                    Some of your startup items could
+                    not be started:
+                    
+                    $p
+                    
+                    Please go to Settings > Manage
+                    Startup Items.""".replace("$p", String.join("\n", problems))));
+        });
+    }
+
+    /**
+     * Starts or stops the order server to match its setting. If it could not be started,
+     * the setting is disabled and the user is told why.
+     *
+     * @return Whether the order server's state now matches its setting
+     */
+    public static boolean reloadOrderServer() {
+        if (Settings.isScriptOrdersEnabled() && orderServer == null) {
+            try {
+                orderServer = new OrderServer(session, Settings.getScriptOrdersPort());
+            } catch (IOException e) {
+                e.printStackTrace();
+                Settings.enableScriptOrders(false);
+                new AlertDialog(wnd, """
+                        Bedroom was unable to accept
+                        orders from scripts, as port
+                        $p is not available.""".replace("$p", String.valueOf(Settings.getScriptOrdersPort())));
+                return false;
+            }
+        } else if (!Settings.isScriptOrdersEnabled() && orderServer != null) {
+            orderServer.close();
+            orderServer = null;
         }
+        return true;
     }
 
-    public static void restart() {
-        wnd.dispose();
-        doLAFStuff();
-        wnd = new BedroomWindow();
-        update();
+    /**
+     * Starts or stops watching the order folder to match its setting. If it could not be watched,
+     * the setting is disabled and the user is told why.
+     *
+     * @return Whether the spool watcher's state now matches its setting
+     */
+    public static boolean reloadSpoolWatcher() {
+        if (Settings.isOrderFolderEnabled() && spoolWatcher == null) {
+            try {
+                spoolWatcher = new SpoolWatcher(session, Path.of(Settings.getOrderFolder()));
+            } catch (IOException e) {
+                e.printStackTrace();
+                Settings.enableOrderFolder(false);
+                new AlertDialog(wnd, """
+                        Bedroom was unable to watch
+                        the order folder at:
+                        $f""".replace("$f", Settings.getOrderFolder()));
+                return false;
+            }
+        } else if (!Settings.isOrderFolderEnabled() && spoolWatcher != null) {
+            spoolWatcher.close();
+            spoolWatcher = null;
+        }
+        return true;
     }
 
-    public static void updateSettings() {
+    /**
+     * Switches every open window to the chosen look and feel and colors in place, so our shift and windows
+     * stay as they are.
+     */
+    public static void reloadLookAndFeel() {
+        doLAFStuff();
         Theme.reloadColors();
-        wnd.reloadSettings();
+
+        for (Window window : Window.getWindows()) {
+            if (!window.isDisplayable()) continue; // Disposed
+
+            Theme.clearColors(window);
+            SwingUtilities.updateComponentTreeUI(window);
+            if (window instanceof Reloadable reloadable) reloadable.reloadSettings(); // Color them again
+            if (window instanceof Frame frame && !frame.isResizable() ||
+                    window instanceof Dialog dialog && !dialog.isResizable()) window.pack(); // Fit the new sizes
+        }
+        update();
     }
 
     public static void update() {
         if (wnd != null && timesChosen()) { // Have we chosen clock in and out times?
 
             // Has our clock in time passed?
-            if (LocalDateTime.now().isAfter(clockInTime)) {
+            if (clockInTimePassed()) {
                 wnd.enableButtons(); // Default to enabled buttons
 
                 if (isInBreak()) wnd.disableButtons(UI.Buttons.ADD_ORDER); // Disable add order button during break
-                ordersNeeded = Math.round(target * (secondsWorkedBy(clockOutTime) / 3600f));
 
             } else wnd.disableButtons(UI.Buttons.BOTH); // Disable buttons until we clock in
 
             updateStatsText(); // Update stats and show on screen
-            wnd.pack();
 
         }
+        refresher.reschedule(); // Keep refreshing only while our stats can change
+    }
+
+    /** Called by the main window when it is minimized or shown again, to pause or resume refreshing */
+    public static void setIconified(boolean iconified) {
+        refresher.setIconified(iconified, Bedroom::update);
     }
 
     public static boolean timesChosen() {
-        return clockOutTime != null;
+        return session.getPlan().timesChosen();
     }
 
     public static void updateStatsText() {
 
+        stats = ShiftStats.of(session.snapshot(), LocalDateTime.now());
         StringBuilder sb = new StringBuilder();
         if (clockInTimePassed()) { // Get stats =======
 
             if (!isInBreak()) { // Show time clocked in
                 sb.append("Time: $t $e\n"
-                        .replace("$t", Time.secondsToTime(secondsWorked))
+                        .replace("$t", Time.secondsToTime(stats.secondsWorked()))
                         .replace("$e", getPercentDone()));
             } else { // Show time left until our break ends =======
                 sb.append("On break, $t left\n"
                         .replace("$t",
-                                Time.secondsToTime(LocalDateTime.now().until(breakOutTime, ChronoUnit.SECONDS))));
+                                Time.secondsToTime(LocalDateTime.now().until(getBreakEnd(), ChronoUnit.SECONDS))));
             }
 
             sb.append(getStats()); // Add stats at the end
@@ -273,16 +522,15 @@ public class Bedroom {
                     $t
                     """
                     .replace("$t",
-                            Time.secondsToTime(LocalDateTime.now().until(clockInTime, ChronoUnit.SECONDS))));
+                            Time.secondsToTime(LocalDateTime.now().until(getClockInTime(), ChronoUnit.SECONDS))));
         }
 
-        secondsWorked = secondsWorkedBy(LocalDateTime.now());
         wnd.display(sb.toString()); // Show on UI
 
     }
 
     public static String getPercentDone() {
-        float percent = (secondsWorked / (float) secondsWorkedBy(clockOutTime)) * 100f;
+        float percent = stats.percentDone();
 
         if (Settings.showMoreShiftInfo()) {
             if (percent < 100f) {
@@ -299,18 +547,23 @@ public class Bedroom {
             return """
                     Orders: $o ($pH)
                     Needed: $n, $l left"""
-                    .replace("$o", String.valueOf(orders))
+                    .replace("$o", String.valueOf(getOrders()))
                     .replace("$pH", getOrdersPerHour())
-                    .replace("$n", String.valueOf(ordersNeeded))
-                    .replace("$l", (orders < ordersNeeded) ?
-                            String.valueOf(ordersNeeded - orders) : "0");
+                    .replace("$n", String.valueOf(getOrdersNeeded()))
+                    .replace("$l", (getOrders() < getOrdersNeeded()) ?
+                            String.valueOf(getOrdersNeeded() - getOrders()) : "0");
         } else return """
                 Orders: $o/$n @ $pH,
-                $u"""
-                .replace("$o", String.valueOf(orders))
-                .replace("$n", String.valueOf(ordersNeeded))
+                $u
+                Last 15m: $r, 60m: $R
+                Projected $j / needed $n"""
+                .replace("$o", String.valueOf(getOrders()))
+                .replace("$n", String.valueOf(getOrdersNeeded()))
                 .replace("$pH", getOrdersPerHour())
-                .replace("$u", getUntilTargetText());
+                .replace("$u", getUntilTargetText())
+                .replace("$r", getRecentOrdersPerHour(RollingRate.SHORT_WINDOW))
+                .replace("$R", getRecentOrdersPerHour(RollingRate.LONG_WINDOW))
+                .replace("$j", String.valueOf(pace.projectedOrders(session.snapshot(), LocalDateTime.now())));
 
     }
 
@@ -320,7 +573,7 @@ public class Bedroom {
         if (ordersNeeded > 0) {
             return "$u until target of $t/hr"
                 .replace("$u", String.valueOf(ordersNeeded))
-                .replace("$t", String.valueOf(target));
+                .replace("$t", String.valueOf(getTarget()));
         } else {
             return "You are on target.";
         }
@@ -328,97 +581,135 @@ public class Bedroom {
 
     /** Returns how many orders user has left to reach their target */
     public static int getOrdersLeftForTarget() {
-
-        double neededForTarget = (double) secondsWorked/3600 * target;
-        if (neededForTarget > orders) {
-
-            return (int) Math.ceil(neededForTarget - orders);
-
-        } else return 0;
-
+        return stats.ordersLeftForTarget();
     }
 
     public static boolean isInBreak() {
-        return breakTimesChosen() && LocalDateTime.now().isAfter(breakInTime) &&
-                LocalDateTime.now().isBefore(breakOutTime);
+        return session.getPlan().isInBreak(LocalDateTime.now());
     }
 
     public static boolean isOvernightShift() {
-        return isOvernight;
+        return session.getPlan().isOvernight();
     }
 
     public static boolean clockInTimePassed() {
-        return timesChosen() && LocalDateTime.now().isAfter(clockInTime);
+        return session.getPlan().clockInPassed(LocalDateTime.now());
     }
 
-    public static TreeMap<LocalDate, Float> getShiftHistory() {
+    public static ShiftHistory getShiftHistory() {
         return shiftHistory;
     }
 
+    /** Rebuilds the history's percentiles, after shifts were removed from it */
+    public static void rebuildHistorySketch() {
+        historySketch = HistoryStore.buildSketch(shiftHistory);
+        shutdown.historyChanged(shiftHistory, historySketch);
+    }
+
+    /**
+     * Get the percentage of past shifts whose orders per hour were at or below the given value.
+     *
+     * @param ordersPerHour Value to compare
+     * @return Percentile from 0 to 100, or NaN if there is no history
+     */
+    public static double getHistoryPercentile(float ordersPerHour) {
+        return Float.isFinite(ordersPerHour) ? historySketch.rank(ordersPerHour) * 100 : Double.NaN;
+    }
+
+    /**
+     * Suggests an hourly target from past shifts: the 60th percentile of their orders per hour, rounded.
+     *
+     * @return Suggested target, or the default target if there is not enough history
+     */
+    public static int getSuggestedTarget() {
+        if (historySketch.count() < 5) return Settings.getDefaultTarget();
+        return Math.round(historySketch.quantile(0.6));
+    }
+
     public static boolean breakTimesChosen() {
-        return breakOutTime != null;
+        return session.getPlan().breakTimesChosen();
+    }
+
+    /** Returns the current shift's session, which orders may be recorded into from any thread */
+    public static ShiftSession getSession() {
+        return session;
+    }
+
+    public static int getTarget() {
+        return session.getPlan().target();
     }
 
     public static void setTarget(int newTarget) {
-        target = newTarget;
+        session.setTarget(newTarget);
         userPrefs.putInt("target", newTarget);
     }
 
     public static long getLastOrderChange() {
-        return lastOrderChange;
+        return session.getLastOrderChange();
     }
 
     public static int getOrders() {
-        return orders;
+        return (int) session.getOrders();
+    }
+
+    public static long getSecondsWorked() {
+        return stats.secondsWorked();
     }
 
     public static int getOrdersNeeded() {
-        return ordersNeeded;
+        return stats.ordersNeeded();
     }
 
     public static String getOrdersPerHour() {
-        return twoDecs.format(orders * 3600f / secondsWorked) + "/hr";
+        return stats.ordersPerHourText();
+    }
+
+    /**
+     * Get orders per hour over the last few worked minutes, ex: "4.50/hr"
+     *
+     * @param minutes RollingRate.SHORT_WINDOW or RollingRate.LONG_WINDOW
+     * @return Orders per hour, or "-" if no time has been worked yet
+     */
+    public static String getRecentOrdersPerHour(int minutes) {
+        double rate = recentRate.ordersPerHour(minutes, session.getPlan(), LocalDateTime.now());
+        return Double.isNaN(rate) ? "-" : ShiftStats.formatTwoDecimals((float) rate) + "/hr";
     }
 
     public static void setOrders(int newVal, boolean changeLastOrderTime) {
-        if (clockInTimePassed() && !isInBreak()) {
-            orders = newVal;
-            userPrefs.putInt("orders", newVal);
-            if (changeLastOrderTime) lastOrderChange = System.currentTimeMillis();
-            update();
-        }
+        if (session.setOrders(newVal, changeLastOrderTime)) saveOrders();
+    }
+
+    /** Saves our current orders into preferences, in case of a crash, and updates the window */
+    public static void saveOrders() {
+        userPrefs.putInt("orders", getOrders());
+        update();
     }
 
     public static LocalDateTime getBreakStart() {
-        return breakInTime;
+        return session.getPlan().breakStart();
     }
 
     public static LocalDateTime getBreakEnd() {
-        return breakOutTime;
+        return session.getPlan().breakEnd();
     }
 
     public static void setBreak(LocalDateTime start, LocalDateTime end) {
-        breakInTime = start;
-        breakOutTime = end;
+        session.setBreak(start, end);
         // Save break times in preferences for crash recovery
         userPrefs.put("breakStart", start.toString());
         userPrefs.put("breakEnd", end.toString());
     }
 
     public static LocalDateTime getClockInTime() {
-        return clockInTime;
+        return session.getPlan().clockIn();
     }
 
     public static LocalDateTime getClockOutTime() {
-        return clockOutTime;
+        return session.getPlan().clockOut();
     }
 
     public static void setShift(LocalDateTime start, LocalDateTime end) {
-        // If clock in time is 1 day before clock out time, then it is an overnight shift
-        isOvernight = (start.getDayOfWeek().plus(1) == end.getDayOfWeek());
-
-        clockInTime = start;
-        clockOutTime = end;
+        session.setShift(start, end);
         // Save shift times in preferences for crash recovery
         userPrefs.put("shiftStart", start.toString());
         userPrefs.put("shiftEnd", end.toString());
@@ -426,9 +717,20 @@ public class Bedroom {
 
     public static void clockOut(LocalDateTime time) {
 
-        // Store the current shift end date and the orders per hour within the chosen time.
-        shiftHistory.put(LocalDate.now(),
-                Float.valueOf(twoDecs.format(orders * 3600f / secondsWorkedBy(time))));
+        // Store the orders per hour within the chosen time, under this shift's clock in time so earlier shifts
+        // from the same day are kept.
+        float ordersPerHour = ShiftStats.roundTwoDecimals(getOrders() * 3600f / secondsWorkedBy(time));
+        if (!Settings.isDoneLoadingShiftHistory()) useShiftHistory(historyLoad.join()); // Still being read
+        ShiftKey key = new ShiftKey(getClockInTime(), 0); // Key it gets if history could not be read
+        if (shiftHistory != null) { // Else it could not be read, and was not overwritten
+            key = shiftHistory.add(getClockInTime(), ordersPerHour);
+            historySketch.add(ordersPerHour);
+            shutdown.historyChanged(shiftHistory, historySketch);
+        }
+        // Kept until the history file is saved with it, in case saving fails or we are cut short
+        String unsaved = userPrefs.get(ShutdownCoordinator.UNSAVED_SHIFTS, "");
+        userPrefs.put(ShutdownCoordinator.UNSAVED_SHIFTS,
+                (unsaved.isEmpty() ? "" : unsaved + ", ") + key + "=" + ordersPerHour);
         userPrefs.put("shiftEnd", time.toString()); // Save clocked out time
 
         exit();
@@ -442,87 +744,21 @@ public class Bedroom {
      * @return The amount of seconds worked from clock in time to chosen time
      */
     private static long secondsWorkedBy(LocalDateTime till) {
-
-        if (till.isAfter(clockOutTime)) { // If time is beyond clock out time, only measure up to clock out time:
-            return secondsWorkedBy(clockOutTime);
-        }
-
-        if (breakOutTime == null) { // If there is no break:
-            return clockInTime.until(till, ChronoUnit.SECONDS); // Get seconds until the time chosen
-        } else {
-            if (till.isBefore(breakInTime)) { // If we have not started our break:
-                return clockInTime.until(till, ChronoUnit.SECONDS); // Get seconds until the time chosen
-            } else if (till.isBefore(breakOutTime)) { // If we are in our break:
-                return clockInTime.until(breakInTime, ChronoUnit.SECONDS);
-            } else { // If we have passed our break:
-                // Return the time between clocking in and wanted time minus the break length
-                return clockInTime.until(till, ChronoUnit.SECONDS) -
-                        breakInTime.until(breakOutTime, ChronoUnit.SECONDS);
-            }
-        }
-
+        return session.getPlan().secondsWorkedBy(till);
     }
 
     /**
-     * Get things wrapped up before exiting
+     * Get things wrapped up before exiting: our windows close right away, while our state is saved in the
+     * background, after which we exit.
      */
     public static void exit() {
 
-        // Save shitHistory to file
-        try {
-            saveHistoryToFile();
-        } catch (IOException e) {
-            new AlertDialog(wnd, "Unable to save shift history");
-            e.printStackTrace();
-        }
-
-        System.exit(0);
-
-    }
-
-    /**
-     * Saves shift history to a file at the default directory (usually Documents, home in linux)
-     *
-     * @throws IOException If unable to write file
-     */
-    private static void saveHistoryToFile() throws IOException {
-        File path = new File(Settings.getWorkingDir()); // Make the directory into a File
+        if (traceRefresh) System.out.println("Refresh timer woke up $w times ($h/hr)"
+                .replace("$w", String.valueOf(refresher.getWakeups()))
+                .replace("$h", String.valueOf(Math.round(refresher.getWakeupsPerHour()))));
 
-        if (path.exists() || path.mkdirs()) { // If the directory exists or if it can be made:
-            if (Settings.isDoneLoadingShiftHistory()) {
-                createHistoryFileAt(path.toPath()); // Create history file with data
-            }
-        } else { // If the directory does not exist and cannot be made:
-            new AlertDialog(wnd, "Unable to save shift history");
-        }
-    }
-
-    /**
-     * Creates a "shift.history" file storing all our shift history in text.
-     *
-     * @param path Where to create the file.
-     */
-    private static void createHistoryFileAt(Path path) {
-
-        // Create the file instance
-        File shiftHistoryFile = new File(path + File.separator + "shift.history");
-
-        try {
-
-            if (shiftHistoryFile.createNewFile()) { // If the file does not exist attempt to make it
-                try (FileWriter writer = new FileWriter(shiftHistoryFile)) {
-                    if (shiftHistory != null) {
-
-                        writer.write(shiftHistory.toString()); // Write history
-
-                    } else writer.write("{}"); // If history is null, just write empty brackets
-                }
-            } else if (shiftHistoryFile.delete()) saveHistoryToFile(); // delete and remake it if it does exists
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            new AlertDialog(wnd, "Unable to save history to file.");
-        }
+        shutdown.exit(); // Saves any orders not saved yet, and shift history if it changed
+        for (Window window : Window.getWindows()) window.setVisible(false);
 
     }
 
@@ -0,0 +1,67 @@
+package me.marcelohdez.bedroom.dialog;
+
+import me.marcelohdez.bedroom.dialog.history.ShiftHistoryWindow;
+import me.marcelohdez.bedroom.dialog.settings.SettingsDialog;
+import me.marcelohdez.bedroom.util.Reloadable;
+import me.marcelohdez.bedroom.util.Theme;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Keeps the settings dialog and shift history window around once built, as building them takes a while,
+ * so they open instantly and are only reset on reopen. A window is built again once the colors or look and
+ * feel it was built with change, as its components keep them. Only used on the event thread.
+ */
+public final class WindowCache {
+
+    private static SettingsDialog settings;
+    private static List<Object> settingsLook; // Theme.currentLook() when settings was built
+    private static ShiftHistoryWindow history;
+    private static List<Object> historyLook;
+
+    /** Builds our windows ahead of time, so even opening them the first time is quick */
+    public static void warmUp() {
+        getSettings();
+        getHistory();
+    }
+
+    /**
+     * Shows the settings dialog, returning once it is closed.
+     *
+     * @param summoner Window it was opened from
+     */
+    public static void openSettings(Reloadable summoner) {
+        getSettings().open(summoner);
+    }
+
+    /**
+     * Shows the shift history window over the given window.
+     *
+     * @param parent Window it was opened from, which is disabled until it is closed
+     */
+    public static void openHistory(Component parent) {
+        getHistory().open(parent);
+    }
+
+    private static SettingsDialog getSettings() {
+        List<Object> look = Theme.currentLook();
+        if (settings == null || !settings.isDisplayable() || !look.equals(settingsLook)) {
+            if (settings != null) settings.dispose();
+            settings = new SettingsDialog();
+            settingsLook = look;
+        }
+        return settings;
+    }
+
+    private static ShiftHistoryWindow getHistory() {
+        List<Object> look = Theme.currentLook();
+        if (history == null || !history.isDisplayable() || !look.equals(historyLook)) {
+            if (history != null) history.dispose();
+            history = new ShiftHistoryWindow();
+            historyLook = look;
+        }
+        return history;
+    }
+
+}
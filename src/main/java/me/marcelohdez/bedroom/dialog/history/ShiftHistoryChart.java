@@ -1,6 +1,9 @@
 package me.marcelohdez.bedroom.dialog.history;
 
 import me.marcelohdez.bedroom.Bedroom;
+import me.marcelohdez.bedroom.history.HistoryIndex;
+import me.marcelohdez.bedroom.history.HistoryQuery;
+import me.marcelohdez.bedroom.history.HistoryResult;
 import me.marcelohdez.bedroom.util.Settings;
 import me.marcelohdez.bedroom.util.Theme;
 
@@ -20,6 +23,10 @@ public class ShiftHistoryChart extends JPanel {
     private boolean noHistory = false;
     private boolean canShowToday = Bedroom.clockInTimePassed(); // If we're currently clocked in
 
+    private HistoryIndex index; // Built from shift history when first needed, and again after it changes
+    private HistoryQuery query = HistoryQuery.ALL; // Filter of the dates shown
+    private HistoryResult result; // Shifts matching our query
+
     private final ArrayList<LocalDate> dates = getDates();
     private float pointsAmount = 8f;
     private int currentPage;
@@ -48,16 +55,15 @@ public class ShiftHistoryChart extends JPanel {
 
     // ----- Private methods -----
 
-    /** Get history data and clean up its keys, and add today's if applicable */
+    /** Get history data matching our query, and add today's if applicable */
     private ArrayList<LocalDate> getDates() {
         ArrayList<LocalDate> newList = new ArrayList<>();
 
         if (Bedroom.getShiftHistory() != null) { // Add existing shift history:
-            for (LocalDate key : Bedroom.getShiftHistory().keySet()) {
-                if (Bedroom.getShiftHistory().get(key) != null && !Bedroom.getShiftHistory().get(key).isNaN()) {
-                    newList.add(key);
-                }
-            }
+            if (index == null) index = new HistoryIndex(Bedroom.getShiftHistory().byDay());
+            result = index.run(query); // Already leaves out shifts without a value
+            newList.addAll(result.dates());
+
             noHistory = !(newList.size() > 0);
             if (canShowToday) newList.add(LocalDate.MAX); // LocalDate.MAX represents today's date
         } else noHistory = true;
@@ -86,7 +92,7 @@ public class ShiftHistoryChart extends JPanel {
                 float valueToCheck = 0;
 
                 if (index < dates.size() - (Bedroom.clockInTimePassed() ? 1 : 0)) {
-                    valueToCheck = Bedroom.getShiftHistory().get(dates.get(index));
+                    valueToCheck = Bedroom.getShiftHistory().getDay(dates.get(index));
                 } else if (canShowToday)
                     valueToCheck = todayOrdersPerHr();
 
@@ -134,11 +140,7 @@ public class ShiftHistoryChart extends JPanel {
         if (retryTimer == null) {
             retryTimer = new Timer(500, e -> {
                 if (Settings.isDoneLoadingShiftHistory()) {
-                    dates.clear();
-                    dates.addAll(getDates());
-
-                    updateAllInfo();
-                    repaint();
+                    reloadDates();
 
                     owner.reset();
                     retryTimer.stop();
@@ -177,7 +179,7 @@ public class ShiftHistoryChart extends JPanel {
 
             float value;
             if (index < dates.size()) {
-                value = !onToday ? Bedroom.getShiftHistory().get(dates.get(index)) : todayOrdersPerHr();
+                value = !onToday ? Bedroom.getShiftHistory().getDay(dates.get(index)) : todayOrdersPerHr();
             } else break;
 
             int top = (int) (getHeight() - (getHeight() / range) * value); // Top of current bar
@@ -395,9 +397,41 @@ public class ShiftHistoryChart extends JPanel {
         return dates.get(index);
     }
 
+    /** Deletes every shift from the date at the given index */
     public void deleteDateAt(int index) {
-        Bedroom.getShiftHistory().remove(dates.get(index));
-        dates.remove(index);
+        Bedroom.getShiftHistory().removeDay(dates.get(index));
+        Bedroom.rebuildHistorySketch();
+        this.index = null; // History changed, so its index must be rebuilt
+        reloadDates();
+    }
+
+    /**
+     * Shows the newest page of the given query's shifts, checking again whether today can be shown,
+     * for when our window is reopened.
+     */
+    public void reset(HistoryQuery query) {
+        canShowToday = Bedroom.clockInTimePassed();
+        setQuery(query);
+    }
+
+    /**
+     * Only shows the shifts matching the given query.
+     *
+     * @return The matching shifts, or null if shift history has not loaded yet
+     */
+    public HistoryResult setQuery(HistoryQuery query) {
+        this.query = query;
+        reloadDates();
+        return result;
+    }
+
+    public HistoryResult getResult() {
+        return result;
+    }
+
+    private void reloadDates() {
+        dates.clear();
+        dates.addAll(getDates());
         updateAllInfo();
         repaint();
     }
@@ -1,7 +1,11 @@
 package me.marcelohdez.bedroom.dialog.history;
 
+import me.marcelohdez.bedroom.Bedroom;
 import me.marcelohdez.bedroom.dialog.alert.AlertDialog;
 import me.marcelohdez.bedroom.dialog.alert.YesNoDialog;
+import me.marcelohdez.bedroom.history.HistoryQuery;
+import me.marcelohdez.bedroom.history.HistoryResult;
+import me.marcelohdez.bedroom.shift.ShiftStats;
 import me.marcelohdez.bedroom.util.Ops;
 import me.marcelohdez.bedroom.util.Settings;
 import me.marcelohdez.bedroom.util.Theme;
@@ -11,14 +15,20 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Locale;
 
+/** Built once and hidden when closed, see {@link me.marcelohdez.bedroom.dialog.WindowCache} */
 public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowListener, MouseListener {
 
-    private final Component parent;
+    private Component parent; // Window we were opened from, null while we are not open
     private final ShiftHistoryChart chart = new ShiftHistoryChart(this);
 
     private final JComboBox<String> ptsAmount = new JComboBox<>();
@@ -29,49 +39,101 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
     private final JButton rightButton = new JButton(">");
     private final JButton lastButton = new JButton(">>|");
 
+    // Filter bar components
+    private final JComboBox<String> rangeBox =
+            new JComboBox<>(new String[]{"All time", "Last 30 days", "Last 90 days", "Last year"});
+    private final JToggleButton[] weekdayButtons = new JToggleButton[7]; // Indexed by DayOfWeek.ordinal()
+    private final JComboBox<String> minBox = new JComboBox<>(getValueLimits("At least"));
+    private final JComboBox<String> maxBox = new JComboBox<>(getValueLimits("At most"));
+    private final JLabel summary = new JLabel();
+
     private final JPanel botRow = new JPanel(); // Bottom row panel
 
     private int clickedDateIndex = -1;
     private boolean isShifting = false;
+    private boolean resettingFilter = false; // Ignore filter changes, as we query once done
+    private Dimension minComfortableSize;
 
-    public ShiftHistoryWindow(Component parent) {
-        this.parent = parent;
-        if (parent instanceof JDialog &&
-                ((JDialog) parent).getModalityType() == Dialog.ModalityType.APPLICATION_MODAL) {
-            parent.setVisible(false);
-        } else parent.setEnabled(false); // Disable parent window
+    public ShiftHistoryWindow() {
         chart.addMouseListener(this);
 
         // Set window properties
         setAlwaysOnTop(Settings.getAlwaysOnTop());
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE); // Hidden by close(), so we can be opened again
         setTitle("Shift Performance History");
         addWindowListener(this);
         addKeyListener(this);
+        Settings.subscribe(this, Settings.Change.COLORS, this::recolor);
+        Settings.subscribe(this, Settings.Change.ALWAYS_ON_TOP, () -> setAlwaysOnTop(Settings.getAlwaysOnTop()));
         init(); // Initialize everything
+        addComponentListener(new ComponentAdapter() { // Check for window resizing
+            @Override
+            public void componentResized(ComponentEvent e) {
+                super.componentResized(e);
+                if (minComfortableSize == null) return;
+                // Hide first and last page buttons when they do not fit.
+                firstButton.setVisible(!(getWidth() < minComfortableSize.getWidth()));
+                lastButton.setVisible(!(getWidth() < minComfortableSize.getWidth()));
+            }
+        });
         reset();
 
         Ops.setHandCursorOnCompsFrom(getContentPane()); // Add hand cursor to needed components
+    }
+
+    /**
+     * Shows every shift again from the newest page, over the given window until we are closed.
+     *
+     * @param parent Window we were opened from
+     */
+    public void open(Component parent) {
+        this.parent = parent;
+        if (parent instanceof JDialog &&
+                ((JDialog) parent).getModalityType() == Dialog.ModalityType.APPLICATION_MODAL) {
+            parent.setVisible(false);
+        } else parent.setEnabled(false); // Disable parent window
+
+        clickedDateIndex = -1;
+        isShifting = false;
+        resetFilter();
+        chart.reset(getQuery());
+        reset();
+
+        setAlwaysOnTop(Settings.getAlwaysOnTop());
         setLocationRelativeTo(parent); // Center on parent window
         setVisible(true); // Show dialog
     }
 
+    /** Hides us until we are opened again, giving our parent window back */
+    private void close() {
+        setVisible(false);
+        restoreParent();
+    }
+
+    private void restoreParent() {
+        if (parent == null) return; // Already given back
+
+        Component summoner = parent;
+        parent = null;
+        if (!summoner.isVisible()) {
+            summoner.setVisible(true);
+        } else summoner.setEnabled(true); // Re-enable the summoner window
+        summoner.requestFocus();
+    }
+
     private void setResponsiveSizes() {
+        minComfortableSize = null; // Measure our natural size, with both buttons shown
+        firstButton.setVisible(true);
+        lastButton.setVisible(true);
+        setMinimumSize(null);
+        pack();
+
         Dimension minSize = new Dimension((getWidth() - firstButton.getWidth() - lastButton.getWidth()),
                 (int) (getWidth()/1.7));
-        Dimension minComfortableSize = new Dimension((int) (getWidth()*1.05), (int) (getWidth()/1.5));
+        Dimension comfortableSize = new Dimension((int) (getWidth()*1.05), (int) (getWidth()/1.5));
         setMinimumSize(minSize);
-        setSize(minComfortableSize);
-
-        addComponentListener(new ComponentAdapter() { // Check for window resizing
-            @Override
-            public void componentResized(ComponentEvent e) {
-                super.componentResized(e);
-                // Hide first and last page buttons when they do not fit.
-                firstButton.setVisible(!(getWidth() < minComfortableSize.getWidth()));
-                lastButton.setVisible(!(getWidth() < minComfortableSize.getWidth()));
-            }
-        });
+        setSize(comfortableSize);
+        minComfortableSize = comfortableSize;
     }
 
     private String[] getAllowedAmounts() {
@@ -93,6 +155,8 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
 
     private void init() {
         JPanel topRow = new JPanel();
+        JPanel filterRow = new JPanel();
+        JPanel northRows = new JPanel();
 
         JButton historyFolderButton = new JButton("Open history directory");
         // Right-click menu stuffs:
@@ -121,10 +185,12 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
         deleteDate.addKeyListener(this);
         deleteDate.addActionListener(e -> {
             if (clickedDateIndex >= 0) {
+                int shifts = Bedroom.getShiftHistory().getShiftsOn(chart.getDateAt(clickedDateIndex)).size();
                 if (new YesNoDialog(this, """
                         Are you sure you want to
-                        delete your shift from
+                        delete your $s from
                         $d?"""
+                        .replace("$s", (shifts > 1) ? shifts + " shifts" : "shift")
                         .replace("$d", chart.getDateAt(clickedDateIndex)
                                 .format(DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM)).toUpperCase(Locale.ROOT)))
                         .accepted()) {
@@ -147,17 +213,110 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
         topRow.add(pagesLabel);
         topRow.add(rightButton);
         topRow.add(lastButton);
+        initFilterRow(filterRow);
+        northRows.setLayout(new BoxLayout(northRows, BoxLayout.Y_AXIS));
+        northRows.add(topRow);
+        northRows.add(filterRow);
 
+        botRow.add(summary);
         botRow.add(historyFolderButton);
-        add(topRow, BorderLayout.NORTH);
+        add(northRows, BorderLayout.NORTH);
         add(chart, BorderLayout.CENTER);
         add(botRow, BorderLayout.SOUTH);
+        recolor();
+
+    }
 
+    private void recolor() {
         // Color bottom row a bit brighter than the background:
         if (!Settings.isSystemLAFEnabled())
             botRow.setBackground(Theme.contrastWithShade(
                     Theme.getBgColor(), Settings.isContrastEnabled() ? 200 : 20));
+        chart.repaint(); // Drawn with Theme's colors
+    }
 
+    /** Creates the filter bar, whose every change runs a new query on the chart */
+    private void initFilterRow(JPanel filterRow) {
+        filterRow.add(rangeBox);
+        rangeBox.addKeyListener(this);
+        rangeBox.addActionListener(e -> applyFilter());
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+            JToggleButton button = new JToggleButton(day.getDisplayName(TextStyle.NARROW, Locale.getDefault()), true);
+            button.setToolTipText(day.getDisplayName(TextStyle.FULL, Locale.getDefault()));
+            button.setMargin(new Insets(2, 4, 2, 4));
+            button.addKeyListener(this);
+            button.addActionListener(e -> applyFilter());
+            weekdayButtons[day.ordinal()] = button;
+            filterRow.add(button);
+        }
+
+        for (JComboBox<String> box : List.of(minBox, maxBox)) {
+            box.addKeyListener(this);
+            box.addActionListener(e -> applyFilter());
+            filterRow.add(box);
+        }
+    }
+
+    /** Returns the options of a box limiting orders per hour, "Any" being first */
+    private static String[] getValueLimits(String prefix) {
+        String[] limits = new String[25];
+        limits[0] = prefix + ": Any";
+        for (int i = 1; i < limits.length; i++) limits[i] = prefix + ": " + i + "/hr";
+        return limits;
+    }
+
+    private HistoryQuery getQuery() {
+        LocalDate from = switch (rangeBox.getSelectedIndex()) {
+            case 1 -> LocalDate.now().minusDays(30);
+            case 2 -> LocalDate.now().minusDays(90);
+            case 3 -> LocalDate.now().minusYears(1);
+            default -> null;
+        };
+
+        EnumSet<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (weekdayButtons[day.ordinal()].isSelected()) weekdays.add(day);
+        }
+
+        return HistoryQuery.ALL.withRange(from, null)
+                .withWeekdays(weekdays)
+                .withValues(minBox.getSelectedIndex() > 0 ? minBox.getSelectedIndex() : Float.NEGATIVE_INFINITY,
+                        maxBox.getSelectedIndex() > 0 ? maxBox.getSelectedIndex() : Float.POSITIVE_INFINITY);
+    }
+
+    /** Sets the filter bar back to showing every shift */
+    private void resetFilter() {
+        resettingFilter = true;
+        rangeBox.setSelectedIndex(0);
+        for (JToggleButton button : weekdayButtons) button.setSelected(true);
+        minBox.setSelectedIndex(0);
+        maxBox.setSelectedIndex(0);
+        resettingFilter = false;
+    }
+
+    private void applyFilter() {
+        if (resettingFilter) return;
+
+        chart.setQuery(getQuery());
+        updateAmounts();
+        updatePageInfo();
+    }
+
+    /** Shows the amount, average and best streak of the days shown, each day being its shifts' average */
+    private void updateSummary() {
+        HistoryResult result = chart.getResult();
+        if (result == null || result.count() == 0) {
+            summary.setText("No days match.");
+            return;
+        }
+
+        int target = Bedroom.timesChosen() ? Bedroom.getTarget() : Settings.getDefaultTarget();
+        summary.setText("$c days, avg $a/hr, best streak of $s days at $t/hr"
+                .replace("$c", String.valueOf(result.count()))
+                .replace("$a", ShiftStats.formatTwoDecimals(result.average()))
+                .replace("$s", String.valueOf(result.bestStreakAtLeast(target)))
+                .replace("$t", String.valueOf(target)));
     }
 
     /** Adds action listeners to page changing buttons */
@@ -187,16 +346,21 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
         rightButton.setEnabled(chart.page() != chart.totalPages());
         lastButton.setEnabled(chart.page() != chart.totalPages());
         datesShown.setText(chart.pageDateRange());
+        updateSummary();
 
     }
 
-    protected void reset() {
+    /** Updates the amounts of data points available to show, as the amount of dates may have changed */
+    private void updateAmounts() {
         ptsAmount.removeAllItems();
         for (String s : getAllowedAmounts())
             ptsAmount.addItem(s);
+    }
+
+    protected void reset() {
+        updateAmounts();
 
         updatePageInfo(); // Get correct page numbers and disable left/right buttons as needed
-        pack();
         setResponsiveSizes();
     }
 
@@ -240,7 +404,7 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
     public void keyPressed(KeyEvent e) {
         switch (e.getKeyCode()) {
             case KeyEvent.VK_SHIFT -> isShifting = true;
-            case KeyEvent.VK_ESCAPE -> dispose();
+            case KeyEvent.VK_ESCAPE -> close();
             case KeyEvent.VK_LEFT -> {
                 if (isShifting) {
                     doJobThenUpdate(chart::oldestPage);
@@ -260,11 +424,13 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
     }
 
     @Override
-    public void windowClosed(WindowEvent e) {
-        if (!parent.isVisible()) {
-            parent.setVisible(true);
-        } else parent.setEnabled(true); // Re-enable the summoner window
-        parent.requestFocus();
+    public void windowClosing(WindowEvent e) {
+        close();
+    }
+
+    @Override
+    public void windowClosed(WindowEvent e) { // Disposed, ex: replaced by a new window
+        restoreParent();
     }
 
     @Override
@@ -283,8 +449,6 @@ public class ShiftHistoryWindow extends JFrame implements KeyListener, WindowLis
     @Override
     public void windowOpened(WindowEvent e) {}
     @Override
-    public void windowClosing(WindowEvent e) {}
-    @Override
     public void windowIconified(WindowEvent e) {}
     @Override
     public void windowDeiconified(WindowEvent e) {}
@@ -0,0 +1,192 @@
+package me.marcelohdez.bedroom.dialog.settings;
+
+import me.marcelohdez.bedroom.dialog.alert.AlertDialog;
+import me.marcelohdez.bedroom.shift.WeeklySchedule;
+import me.marcelohdez.bedroom.util.Ops;
+import me.marcelohdez.bedroom.util.Settings;
+import me.marcelohdez.bedroom.util.SharedListModel;
+import me.marcelohdez.bedroom.util.Theme;
+import me.marcelohdez.bedroom.util.Time;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowListener;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Edits the user's weekly schedule: the shift, break and target of each weekday they work. On days with a
+ * shift, Bedroom starts tracking it right away instead of asking for clock in and out times.
+ */
+public class ScheduleEditor extends JDialog implements WindowListener {
+
+    private static final int STEP = 15; // Minutes between the times offered
+    private static final List<String> TIMES = createTimes(); // Shared by every time box
+    private static final String NO_BREAK = "No break";
+    private static final List<String> BREAK_TIMES = createBreakTimes(); // Times, after a "No break" option
+
+    private final DayRow[] rows = new DayRow[7]; // Indexed by DayOfWeek.ordinal()
+
+    /** The components editing one weekday's shift */
+    private record DayRow(JCheckBox works, JComboBox<String> start, JComboBox<String> end,
+                          JComboBox<String> breakStart, JComboBox<String> breakEnd, JComboBox<String> target) {}
+
+    public ScheduleEditor(SettingsDialog parent) {
+        setTitle("Weekly Schedule");
+        addWindowListener(this);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE); // Only closed once the schedule is valid
+        setAlwaysOnTop(Settings.getAlwaysOnTop());
+        setResizable(false);
+
+        JPanel content = new JPanel(); // Content panel to set a background color
+        content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+        content.setBackground(Theme.getBgColor());
+        content.add(createTipLabel());
+        WeeklySchedule schedule = Settings.getSchedule();
+        for (DayOfWeek day : DayOfWeek.values()) content.add(createDayRow(day, schedule.get(day)));
+        Ops.setHandCursorOnCompsFrom(content); // Set hand cursor on needed components
+
+        add(content);
+        pack();
+
+        setModalityType(ModalityType.APPLICATION_MODAL);
+        setLocationRelativeTo(parent); // Center on parent window
+        setVisible(true);
+    }
+
+    private JLabel createTipLabel() {
+        JLabel label = new JLabel("On checked days, Bedroom starts tracking your shift without asking for it.");
+        label.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        return label;
+    }
+
+    private JPanel createDayRow(DayOfWeek day, WeeklySchedule.DayShift shift) {
+        JPanel row = new JPanel();
+        DayRow dayRow = new DayRow(new JCheckBox(day.getDisplayName(TextStyle.FULL, Locale.getDefault())),
+                new JComboBox<>(new SharedListModel<>(TIMES)), new JComboBox<>(new SharedListModel<>(TIMES)),
+                new JComboBox<>(new SharedListModel<>(BREAK_TIMES)), new JComboBox<>(new SharedListModel<>(TIMES)),
+                new JComboBox<>(Ops.numberListModel(false, 1, 24, null)));
+        rows[day.ordinal()] = dayRow;
+
+        // Show the saved shift, or the usual defaults to start from
+        dayRow.works.setSelected(shift != null);
+        dayRow.works.setPreferredSize(new Dimension(110, dayRow.works.getPreferredSize().height));
+        dayRow.start.setSelectedIndex(indexOf(shift != null ? shift.start() : LocalTime.of(9, 0)));
+        dayRow.end.setSelectedIndex(indexOf(shift != null ? shift.end() :
+                LocalTime.of(9, 0).plusHours(Settings.getDefaultShiftLength())));
+        dayRow.breakStart.setSelectedIndex(shift != null && shift.breakStart() != null ?
+                indexOf(shift.breakStart()) + 1 : 0);
+        dayRow.breakEnd.setSelectedIndex(indexOf(shift != null && shift.breakEnd() != null ?
+                shift.breakEnd() : LocalTime.of(12, 30)));
+        dayRow.target.setSelectedIndex(Math.min(shift != null ? shift.target() : Settings.getDefaultTarget(), 24) - 1);
+
+        dayRow.works.addActionListener(e -> enableRow(dayRow));
+        dayRow.breakStart.addActionListener(e -> enableRow(dayRow));
+        enableRow(dayRow);
+
+        row.add(dayRow.works);
+        row.add(dayRow.start);
+        row.add(new JLabel("to"));
+        row.add(dayRow.end);
+        row.add(new JLabel("Break:"));
+        row.add(dayRow.breakStart);
+        row.add(new JLabel("to"));
+        row.add(dayRow.breakEnd);
+        row.add(new JLabel("Target:"));
+        row.add(dayRow.target);
+        return row;
+    }
+
+    /** Only lets a row's times be changed if the user works that day, and its break end if it has a break */
+    private void enableRow(DayRow row) {
+        boolean works = row.works.isSelected();
+        row.start.setEnabled(works);
+        row.end.setEnabled(works);
+        row.breakStart.setEnabled(works);
+        row.breakEnd.setEnabled(works && row.breakStart.getSelectedIndex() > 0);
+        row.target.setEnabled(works);
+    }
+
+    /**
+     * Reads the schedule shown, telling the user about the first day whose times do not work.
+     *
+     * @return The schedule, or null if a day's times do not work
+     */
+    private WeeklySchedule readSchedule() {
+        WeeklySchedule schedule = WeeklySchedule.EMPTY;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            DayRow row = rows[day.ordinal()];
+            if (!row.works.isSelected()) continue;
+
+            boolean hasBreak = row.breakStart.getSelectedIndex() > 0;
+            WeeklySchedule.DayShift shift = new WeeklySchedule.DayShift(timeAt(row.start.getSelectedIndex()),
+                    timeAt(row.end.getSelectedIndex()),
+                    hasBreak ? timeAt(row.breakStart.getSelectedIndex() - 1) : null,
+                    hasBreak ? timeAt(row.breakEnd.getSelectedIndex()) : null,
+                    row.target.getSelectedIndex() + 1);
+
+            if (!shift.isValid()) {
+                new AlertDialog(this, """
+                        $d's shift must not start and
+                        end at the same time, and its
+                        break must be inside of it."""
+                        .replace("$d", row.works.getText()));
+                return null;
+            }
+            schedule = schedule.with(day, shift);
+        }
+        return schedule;
+    }
+
+    private static List<String> createTimes() {
+        List<String> times = new ArrayList<>();
+        for (int minute = 0; minute < 24 * 60; minute += STEP) {
+            times.add(Time.makeTime12Hour(LocalTime.of(minute / 60, minute % 60)));
+        }
+        return List.copyOf(times);
+    }
+
+    private static List<String> createBreakTimes() {
+        List<String> times = new ArrayList<>(TIMES.size() + 1);
+        times.add(NO_BREAK);
+        times.addAll(TIMES);
+        return List.copyOf(times);
+    }
+
+    private static LocalTime timeAt(int index) {
+        return LocalTime.MIDNIGHT.plusMinutes((long) index * STEP);
+    }
+
+    /** Returns the index of the given time, rounded down to the times offered */
+    private static int indexOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / STEP;
+    }
+
+    @Override
+    public void windowClosing(WindowEvent e) {
+        WeeklySchedule schedule = readSchedule();
+        if (schedule != null) {
+            Settings.setSchedule(schedule);
+            dispose();
+        }
+    }
+
+    // ======= Currently unused interface methods =======
+    @Override
+    public void windowOpened(WindowEvent e) {}
+    @Override
+    public void windowClosed(WindowEvent e) {}
+    @Override
+    public void windowIconified(WindowEvent e) {}
+    @Override
+    public void windowDeiconified(WindowEvent e) {}
+    @Override
+    public void windowActivated(WindowEvent e) {}
+    @Override
+    public void windowDeactivated(WindowEvent e) {}
+}
@@ -13,32 +13,43 @@ import java.awt.event.KeyListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 
+/** Built once and hidden when closed, see {@link me.marcelohdez.bedroom.dialog.WindowCache} */
 public class SettingsDialog extends JDialog implements WindowListener, KeyListener {
 
     private final SettingsUI sui;
-    private final Reloadable summoner;
+    private Reloadable summoner;
     private boolean shifting = false;
-    private final boolean isSystemLAFEnabled = Settings.isSystemLAFEnabled(); // Check for change upon closing
-
-    public SettingsDialog(Reloadable summoner) {
-        this.summoner = summoner;
+    private boolean isSystemLAFEnabled; // Check for change upon closing
 
+    public SettingsDialog() {
         setTitle("Settings");
         setModalityType(ModalityType.APPLICATION_MODAL);
-        setAlwaysOnTop(Settings.getAlwaysOnTop());
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
         addWindowListener(this);
         setResizable(false);
         addKeyListener(this);
         sui = new SettingsUI(this);
         add(sui);
+        pack();
+    }
 
+    /**
+     * Shows the current settings, returning once the dialog is closed.
+     *
+     * @param summoner Window we were opened from
+     */
+    public void open(Reloadable summoner) {
+        this.summoner = summoner;
+        shifting = false;
+        isSystemLAFEnabled = Settings.isSystemLAFEnabled();
+        sui.reset();
+
+        setAlwaysOnTop(Settings.getAlwaysOnTop());
         pack();
         if (summoner instanceof Component) {
             setLocationRelativeTo((Component) summoner); // Center on parent window
         }
         setVisible(true); // Show
-
     }
 
     Reloadable getSummoner() {
@@ -53,7 +64,7 @@ public class SettingsDialog extends JDialog implements WindowListener, KeyListen
         sui.updateValues();
         Settings.enableSystemLAF(sui.isSystemLAFChosen());
         alertSelectTimeDialogColorChange();
-        alertLAFChange();
+        reloadLAFIfChanged();
     }
 
     private void alertSelectTimeDialogColorChange() {
@@ -67,19 +78,8 @@ public class SettingsDialog extends JDialog implements WindowListener, KeyListen
         }
     }
 
-    private void alertLAFChange() {
-        if (isSystemLAFEnabled != Settings.isSystemLAFEnabled()) {
-            if (!Settings.isSystemLAFEnabled()) {
-                Bedroom.restart();
-            } else {
-                new AlertDialog(this, """
-                        Changing from the system's theme
-                        to a colored one requires a restart
-                        so please reopen me as I will now
-                        close.""");
-                System.exit(0);
-            }
-        }
+    private void reloadLAFIfChanged() {
+        if (isSystemLAFEnabled != Settings.isSystemLAFEnabled()) Bedroom.reloadLookAndFeel();
     }
 
     @Override
@@ -88,7 +88,7 @@ public class SettingsDialog extends JDialog implements WindowListener, KeyListen
             case KeyEvent.VK_SHIFT -> shifting = true; // If shift is pressed, we are shifting
             case KeyEvent.VK_ESCAPE -> {
                 saveChanges();  // Save changes
-                dispose(); // If escape is pressed, close window
+                setVisible(false); // If escape is pressed, close window
             }
         }
     }
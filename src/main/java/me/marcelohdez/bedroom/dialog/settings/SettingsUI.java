@@ -1,7 +1,7 @@
 package me.marcelohdez.bedroom.dialog.settings;
 
 import me.marcelohdez.bedroom.Bedroom;
-import me.marcelohdez.bedroom.dialog.time.SelectTimeDialog;
+import me.marcelohdez.bedroom.util.FrameThrottle;
 import me.marcelohdez.bedroom.util.Ops;
 import me.marcelohdez.bedroom.util.Theme;
 import me.marcelohdez.bedroom.dialog.FloatingSpinner;
@@ -29,6 +29,8 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
     // This used to ignore showing the color values when changing themes/component being edited:
     private boolean showColorValues = true;
     private boolean highContrast = Settings.isContrastEnabled();
+    // Shows slider changes at most once per frame, they are only saved once a slider is let go or we close
+    private final FrameThrottle colorPreview = new FrameThrottle(this::previewColors);
 
     // ======= Combo Boxes: =======
     // Components we can color
@@ -41,9 +43,9 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
     });
     // Default shift length in hours.
     private final JComboBox<String> shiftLengthListBox =
-            new JComboBox<>(Ops.createNumberList(false, 1, 12, "h "));
+            new JComboBox<>(Ops.numberListModel(false, 1, 12, "h "));
     private final JComboBox<String> defTargetListBox =
-            new JComboBox<>(Ops.createNumberList(false, 1, 24, "   "));
+            new JComboBox<>(Ops.numberListModel(false, 1, 24, "   "));
 
     // ======= Checkboxes =======
     private final JCheckBox systemLAFCheckBox = new JCheckBox("Use system theme");
@@ -51,6 +53,9 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
     private final JCheckBox recoverCrash = new JCheckBox("Crash recovery");
     private final JCheckBox askBeforeEarlyClose = new JCheckBox("Ask before clocking out early");
     private final JCheckBox showMoreShiftInfo = new JCheckBox("Show more shift info");
+    private final JCheckBox accelerateOrderKeys = new JCheckBox("Speed up held arrow keys");
+    private final JCheckBox scriptOrders = new JCheckBox("Accept orders from scripts");
+    private final JCheckBox orderFolder = new JCheckBox("Read orders from order folder");
 
     public SettingsUI(SettingsDialog window) { // Settings UI constructor
         this.window = window;
@@ -73,10 +78,15 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
         createCheckBoxRow(alwaysOnTop, recoverCrash);
         createCheckBoxRow(askBeforeEarlyClose);
         createCheckBoxRow(showMoreShiftInfo);
+        createCheckBoxRow(accelerateOrderKeys);
+        createCheckBoxRow(scriptOrders);
+        createCheckBoxRow(orderFolder);
         createListBoxRow("Default shift length:", shiftLengthListBox);
         createListBoxRow("Default target:", defTargetListBox);
         createButtonRow("Manage Startup Items", "Startup items open along with Bedroom.",
                 e -> new StartupItemsManager(window));
+        createButtonRow("Manage Schedule", "Days with a scheduled shift skip choosing times.",
+                e -> new ScheduleEditor(window));
         createButtonRow("Set Defaults", "Reset Misc. options, excluding startup items.",
                 e -> setDefaultMisc());
 
@@ -84,28 +94,23 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
 
     }
 
+    /** Shows the current settings again, for when our dialog is reopened */
+    void reset() {
+        loadRGBValues();
+        highContrast = Settings.isContrastEnabled();
+        changeCount = 0; // Updating the sliders makes the usual 2 changes
+        loadOptions();
+        updateColorSliders();
+        enableOrDisableColors();
+    }
+
     private void loadRGBValues() {
 
         // Get already set RGB values
-        textRGB = new int[] { // Get text RGB values
-                Bedroom.userPrefs.getInt("textRed", 240),
-                Bedroom.userPrefs.getInt("textGreen", 240),
-                Bedroom.userPrefs.getInt("textBlue", 240)};
-
-        buttonTextRGB = new int[] { // Get button text RGB values
-                Bedroom.userPrefs.getInt("buttonTextRed", 240),
-                Bedroom.userPrefs.getInt("buttonTextGreen", 240),
-                Bedroom.userPrefs.getInt("buttonTextBlue", 240)};
-
-        buttonRGB = new int[] { // Get button RGB values
-                Bedroom.userPrefs.getInt("buttonRed", 80),
-                Bedroom.userPrefs.getInt("buttonGreen", 80),
-                Bedroom.userPrefs.getInt("buttonBlue", 80)};
-
-        bgRGB = new int[] { // Get background RGB values
-                Bedroom.userPrefs.getInt("bgRed", 64),
-                Bedroom.userPrefs.getInt("bgGreen", 64),
-                Bedroom.userPrefs.getInt("bgBlue", 64)};
+        textRGB = Theme.loadRGBOf("text", 240);
+        buttonTextRGB = Theme.loadRGBOf("buttonText", 240);
+        buttonRGB = Theme.loadRGBOf("button", 80);
+        bgRGB = Theme.loadRGBOf("bg", 64);
 
     }
 
@@ -184,14 +189,30 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
         coloringListBox.setEnabled(enable);
     }
 
-    private void initOptions() {
+    /** Sets the misc. options to their saved values */
+    private void loadOptions() {
         alwaysOnTop.setSelected(Settings.getAlwaysOnTop());
         recoverCrash.setSelected(Settings.isCrashRecoveryEnabled());
         shiftLengthListBox.setSelectedIndex(Math.min(Settings.getDefaultShiftLength() - 1, defTargetListBox.getItemCount()));
         defTargetListBox.setSelectedIndex(Math.min(Settings.getDefaultTarget() - 1, defTargetListBox.getItemCount()));
         askBeforeEarlyClose.setSelected(Settings.getAskBeforeEarlyClose());
         showMoreShiftInfo.setSelected(Settings.showMoreShiftInfo());
+        accelerateOrderKeys.setSelected(Settings.isOrderKeyAccelerationEnabled());
+        scriptOrders.setSelected(Settings.isScriptOrdersEnabled());
+        orderFolder.setSelected(Settings.isOrderFolderEnabled());
         systemLAFCheckBox.setSelected(Settings.isSystemLAFEnabled());
+    }
+
+    private void initOptions() {
+        loadOptions();
+        scriptOrders.addActionListener(e -> { // Start or stop the order server only when this is clicked
+            Settings.enableScriptOrders(scriptOrders.isSelected());
+            if (!Bedroom.reloadOrderServer()) scriptOrders.setSelected(false);
+        });
+        orderFolder.addActionListener(e -> { // Likewise for the order folder
+            Settings.enableOrderFolder(orderFolder.isSelected());
+            if (!Bedroom.reloadSpoolWatcher()) orderFolder.setSelected(false);
+        });
         systemLAFCheckBox.addActionListener(e -> enableOrDisableColors());
 
         setToolTips();
@@ -207,7 +228,12 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
         defTargetListBox.setToolTipText(boldString("Default target value in clock out time dialog"));
         askBeforeEarlyClose.setToolTipText(boldString("Show a dialog if closing Bedroom before<br>the clock out time"));
         showMoreShiftInfo.setToolTipText(boldString("Show extra shift information in the main window"));
-        systemLAFCheckBox.setToolTipText(boldString("Switching to system theme requires a restart"));
+        accelerateOrderKeys.setToolTipText(boldString("Add or remove orders faster the longer<br>Up or Down is held"));
+        scriptOrders.setToolTipText(boldString("Let scripts on this computer send orders like \"+1\"<br>to localhost:"
+                + Settings.getScriptOrdersPort()));
+        orderFolder.setToolTipText(boldString("Count order lines like \"+1\" written to files in:<br>"
+                + Settings.getOrderFolder()));
+        systemLAFCheckBox.setToolTipText(boldString("Use the system's look instead of Bedroom's colors"));
     }
 
     private String boldString(String str) {
@@ -426,13 +452,14 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
 
         alwaysOnTop.setSelected(true);
         askBeforeEarlyClose.setSelected(true);
+        accelerateOrderKeys.setSelected(false);
         shiftLengthListBox.setSelectedIndex(3);
         defTargetListBox.setSelectedIndex(8);
 
     }
 
-    public void updateValues() {
-
+    /** Sets the colors of the component currently being colored to the sliders' values */
+    private void readSliderValues() {
         setColorSliderToolTips();
         int[] newRGB = new int[] {redSlider.getValue(), greenSlider.getValue(), blueSlider.getValue()};
         switch (currentlyColoring) {
@@ -441,34 +468,44 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
             case 2 -> buttonRGB = newRGB;
             case 3 -> bgRGB = newRGB;
         }
+    }
+
+    /** Shows our colors on the open windows without saving them */
+    private void previewColors() {
+        // High contrast colors are only known once saved, and the system theme can not be colored
+        if (Settings.isSystemLAFEnabled() || highContrast) return;
+
+        Settings.previewColors(textRGB, buttonTextRGB, buttonRGB, bgRGB);
+    }
+
+    public void updateValues() {
+
+        colorPreview.flush(); // Saving reloads every color anyway, so a late preview must not undo it
+        readSliderValues();
 
         // Saving color stuffs
         if (!Settings.isSystemLAFEnabled()) {
             Settings.enableHighContrast(highContrast);
             // Since high contrast overwrites colors anyway, only do this if it is false
             if (!highContrast) Settings.saveColors(textRGB, buttonTextRGB, buttonRGB, bgRGB);
-
-            if (window.getSummoner() instanceof SelectTimeDialog) {
-                window.getSummoner().reloadSettings();  // Reload SelectTimeDialog's settings if it is the summoner
-            }
         }
 
-        // Save misc. settings
+        // Save misc. settings, windows are told of the ones they show by Settings
         Settings.setAlwaysOnTop(alwaysOnTop.isSelected());
         Settings.setAskBeforeEarlyClose(askBeforeEarlyClose.isSelected());
         Settings.setDefaultShiftLength(shiftLengthListBox.getSelectedIndex() + 1);
         Settings.enableCrashRecovery(recoverCrash.isSelected());
         Settings.setDefaultTarget(defTargetListBox.getSelectedIndex() + 1);
         Settings.enableExtraShiftInfo(showMoreShiftInfo.isSelected());
-
-        Bedroom.updateSettings();
+        Settings.enableOrderKeyAcceleration(accelerateOrderKeys.isSelected());
 
     }
 
     @Override
     public void stateChanged(ChangeEvent e) {
         changeCount++;
-        updateValues();
+        readSliderValues();
+        colorPreview.request();
 
         if (e.getSource() instanceof JSlider) {
             setColorLabelsToValues();
@@ -484,6 +521,7 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
                 setTheme(Objects.requireNonNull(themeListBox.getSelectedItem()).toString());
             }
             updateColorSliders();
+            updateValues(); // Save the new theme right away, unlike slider changes
             Bedroom.userPrefs.putInt("lastTheme", themeListBox.getSelectedIndex());
 
         } else if (e.getSource().equals(coloringListBox)) {
@@ -502,6 +540,7 @@ public class SettingsUI extends JPanel implements ChangeListener, ItemListener,
     public void mouseReleased(MouseEvent e) {
         if (e.isPopupTrigger()) setCustomSliderValue(e);
         resetColorLabels();
+        updateValues(); // Save the colors previewed while dragging
     }
 
     @Override
@@ -1,8 +1,7 @@
 package me.marcelohdez.bedroom.dialog.time;
 
 import me.marcelohdez.bedroom.Bedroom;
-import me.marcelohdez.bedroom.dialog.history.ShiftHistoryWindow;
-import me.marcelohdez.bedroom.dialog.settings.SettingsDialog;
+import me.marcelohdez.bedroom.dialog.WindowCache;
 import me.marcelohdez.bedroom.main.BedroomWindow;
 import me.marcelohdez.bedroom.util.Reloadable;
 import me.marcelohdez.bedroom.util.TimeWindowType;
@@ -58,6 +57,8 @@ public class SelectTimeDialog extends JDialog implements WindowListener, Reloada
 
         // Initial properties
         reloadAlwaysOnTop();
+        Settings.subscribe(this, Settings.Change.COLORS, ui::reColorComps);
+        Settings.subscribe(this, Settings.Change.ALWAYS_ON_TOP, this::reloadAlwaysOnTop);
         setResizable(false);
         setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
         addWindowListener(this);
@@ -118,8 +119,8 @@ public class SelectTimeDialog extends JDialog implements WindowListener, Reloada
             case KeyEvent.VK_ENTER, 13 -> ui.selectTime(); // Select time with Enter (return on macOS, which is 13)
             case KeyEvent.VK_ESCAPE -> close();
             case KeyEvent.VK_DELETE, KeyEvent.VK_BACK_SPACE ->
-                    new SettingsDialog(this);  // Open settings with Delete or Backspace keys
-            case KeyEvent.VK_BACK_SLASH -> new ShiftHistoryWindow(this);
+                    WindowCache.openSettings(this);  // Open settings with Delete or Backspace keys
+            case KeyEvent.VK_BACK_SLASH -> WindowCache.openHistory(this);
             case KeyEvent.VK_SHIFT -> shifting = true;
         }
     }
@@ -33,9 +33,9 @@ public class SelectTimeUI extends JPanel {
     private final JLabel targetLabel = new JLabel("Your hourly target:"); // Select target text
 
     // List boxes:
-    private final JComboBox<String> hrBox = new JComboBox<>(Ops.createNumberList(true, 1, 12, ":"));
-    private final JComboBox<String> minBox = new JComboBox<>(Ops.createNumberList(true, 0, 59, null));
-    private final JComboBox<String> targetBox = new JComboBox<>(Ops.createNumberList(true, 1, 24, null));
+    private final JComboBox<String> hrBox = new JComboBox<>(Ops.numberListModel(true, 1, 12, ":"));
+    private final JComboBox<String> minBox = new JComboBox<>(Ops.numberListModel(true, 0, 59, null));
+    private final JComboBox<String> targetBox = new JComboBox<>(Ops.numberListModel(true, 1, 24, null));
     private final JComboBox<String> amPMBox = new JComboBox<>(new String[]{"AM", "PM"});    // AM/PM list box
 
     // Time selected from last Select Time Dialog, used in dialog sets ex: break end and start time
@@ -98,7 +98,8 @@ public class SelectTimeUI extends JPanel {
         minBox.addKeyListener(dialog);
         amPMBox.addKeyListener(dialog);
         targetLabel.setHorizontalAlignment(JLabel.CENTER);
-        targetBox.setSelectedIndex(Settings.getDefaultTarget() - 1); // Set index to target - 1 since list starts at 1
+        // Suggest a target from our past shifts, set index to target - 1 since list starts at 1
+        targetBox.setSelectedIndex(Math.min(Math.max(Bedroom.getSuggestedTarget(), 1), targetBox.getItemCount()) - 1);
         targetBox.addKeyListener(dialog);
 
     }
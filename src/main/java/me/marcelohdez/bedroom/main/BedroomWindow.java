@@ -1,8 +1,7 @@
 package me.marcelohdez.bedroom.main;
 
 import me.marcelohdez.bedroom.Bedroom;
-import me.marcelohdez.bedroom.dialog.history.ShiftHistoryWindow;
-import me.marcelohdez.bedroom.dialog.settings.SettingsDialog;
+import me.marcelohdez.bedroom.dialog.WindowCache;
 import me.marcelohdez.bedroom.dialog.time.SelectTimeDialog;
 import me.marcelohdez.bedroom.util.Settings;
 import me.marcelohdez.bedroom.util.TimeWindowType;
@@ -10,6 +9,7 @@ import me.marcelohdez.bedroom.util.Reloadable;
 
 import javax.swing.*;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
@@ -18,6 +18,7 @@ import java.time.LocalDateTime;
 public class BedroomWindow extends JFrame implements Reloadable, WindowListener, KeyListener {
 
     private final UI ui = new UI(this);
+    private final OrderInput orderInput = new OrderInput();
     private SelectTimeDialog clockInDialog;
 
     public BedroomWindow() {
@@ -28,6 +29,9 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
         reloadAlwaysOnTop();
         addWindowListener(this);
         addKeyListener(this);
+        Settings.subscribe(this, Settings.Change.COLORS, this::recolor);
+        Settings.subscribe(this, Settings.Change.ALWAYS_ON_TOP, this::reloadAlwaysOnTop);
+        Settings.subscribe(this, Settings.Change.STATS_FORMAT, Bedroom::update);
 
         add(ui);
 
@@ -38,6 +42,12 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
         if (!Bedroom.timesChosen()) {
             SwingUtilities.invokeLater(() -> {
                 clockInDialog = new SelectTimeDialog(this, TimeWindowType.CLOCK_IN);
+                clockInDialog.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowOpened(WindowEvent e) {
+                        Bedroom.markStartup("clock in dialog shown"); // When agents can start clocking in
+                    }
+                });
                 clockInDialog.showSelf();
             });
         }
@@ -45,7 +55,7 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
     }
 
     public void display(String text) {
-        ui.display(text);
+        if (ui.display(text)) pack(); // Only resize when our text needs a different amount of space
     }
 
     public void reloadAlwaysOnTop() {
@@ -66,20 +76,25 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
 
     @Override
     public void reloadSettings() {
-        ui.colorComponents();
+        recolor();
         reloadAlwaysOnTop();
     }
 
+    /** Colors our components with Theme's current colors */
+    public void recolor() {
+        ui.colorComponents();
+    }
+
     @Override
     public void keyPressed(KeyEvent e) {
+        if (orderInput.keyPressed(e.getKeyCode())) return; // Add or remove orders with Up and Down
+
         // ======= Shortcuts =======
         switch (e.getKeyCode()) {
-            case KeyEvent.VK_DOWN -> Bedroom.setOrders(Bedroom.getOrders() - 1, true); // Remove orders
             case KeyEvent.VK_0 -> enterBreak();             // Set break times
-            case KeyEvent.VK_UP -> Bedroom.setOrders(Bedroom.getOrders() + 1, true); // Add orders
             case KeyEvent.VK_DELETE, KeyEvent.VK_BACK_SPACE ->
-                    new SettingsDialog(this);  // Open settings with Delete or Backspace keys
-            case KeyEvent.VK_BACK_SLASH -> new ShiftHistoryWindow(this);
+                    WindowCache.openSettings(this);  // Open settings with Delete or Backspace keys
+            case KeyEvent.VK_BACK_SLASH -> WindowCache.openHistory(this);
         }
     }
 
@@ -107,6 +122,11 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
 
     }
 
+    @Override
+    public void windowOpened(WindowEvent e) {
+        Bedroom.windowShown(); // Marks startup as done, for --trace-startup and --exit-when-shown
+    }
+
     @Override
     public void windowClosed(WindowEvent e) {
         if (clockInDialog != null) {
@@ -115,13 +135,17 @@ public class BedroomWindow extends JFrame implements Reloadable, WindowListener,
         }
     }
 
-    // Unused
-    @Override
-    public void windowOpened(WindowEvent e) {}
     @Override
-    public void windowIconified(WindowEvent e) {}
+    public void windowIconified(WindowEvent e) {
+        Bedroom.setIconified(true);
+    }
+
     @Override
-    public void windowDeiconified(WindowEvent e) {}
+    public void windowDeiconified(WindowEvent e) {
+        Bedroom.setIconified(false);
+    }
+
+    // Unused
     @Override
     public void windowActivated(WindowEvent e) {}
     @Override
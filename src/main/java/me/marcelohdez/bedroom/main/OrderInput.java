@@ -0,0 +1,64 @@
+package me.marcelohdez.bedroom.main;
+
+import me.marcelohdez.bedroom.Bedroom;
+import me.marcelohdez.bedroom.util.Settings;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * Handles adding and removing orders with the arrow keys. Every key press changes our orders right away,
+ * while saving them and updating the window is coalesced by Bedroom's session subscription, so holding a
+ * key down (which repeats it at the OS's rate) doesn't save and repack on every single repeat.
+ */
+public class OrderInput {
+
+    private static final long HOLD_GAP_MILLIS = 200; // Max time between repeats for a key to count as held
+
+    private int heldKey = KeyEvent.VK_UNDEFINED;
+    private long holdStart, lastPress;
+
+    /**
+     * Handles a key press, adding or removing orders if it is the Up or Down key.
+     *
+     * @param keyCode Key code of the pressed key
+     * @return Whether the key was handled
+     */
+    public boolean keyPressed(int keyCode) {
+        int direction;
+        switch (keyCode) {
+            case KeyEvent.VK_UP -> direction = 1;
+            case KeyEvent.VK_DOWN -> direction = -1;
+            default -> {
+                return false;
+            }
+        }
+
+        // Some systems send a release for every repeat, so we tell whether a key is held by its timing
+        long now = System.currentTimeMillis();
+        if (keyCode != heldKey || now - lastPress > HOLD_GAP_MILLIS) {
+            heldKey = keyCode;
+            holdStart = now;
+        }
+        lastPress = now;
+
+        Bedroom.getSession().addOrders(direction * getStep(direction, now - holdStart));
+        return true;
+    }
+
+    /** Returns how many orders to add or remove after a key has been held for the given time */
+    private int getStep(int direction, long heldFor) {
+        if (!Settings.isOrderKeyAccelerationEnabled()) return 1;
+
+        int step;
+        if (heldFor < 1000) {
+            step = 1;
+        } else if (heldFor < 2500) {
+            step = 2;
+        } else step = 5;
+
+        // Do not let faster removals skip past zero orders
+        if (direction < 0 && step > 1) step = Math.min(step, Math.max(Bedroom.getOrders(), 1));
+        return step;
+    }
+
+}
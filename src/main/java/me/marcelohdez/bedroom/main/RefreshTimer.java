@@ -0,0 +1,61 @@
+package me.marcelohdez.bedroom.main;
+
+import me.marcelohdez.bedroom.Bedroom;
+
+import javax.swing.*;
+import java.time.LocalDateTime;
+
+/**
+ * Refreshes the main window's stats once a second, but only while they can actually change on screen:
+ * the timer is stopped while the window is minimized, before any shift times are chosen, and once the
+ * shift has ended (order changes still refresh the window themselves).
+ */
+public class RefreshTimer {
+
+    private final Timer timer;
+    private final long createdAt = System.currentTimeMillis();
+    private long wakeups = 0; // Amount of times this timer has fired, to measure its cost
+    private boolean iconified = false;
+
+    public RefreshTimer(Runnable refresh) {
+        timer = new Timer(1000, e -> {
+            wakeups++;
+            refresh.run();
+        });
+    }
+
+    /** Starts or stops the timer depending on the main window's state and the current shift phase */
+    public void reschedule() {
+        if (shouldTick()) {
+            if (!timer.isRunning()) timer.start();
+        } else timer.stop();
+    }
+
+    private boolean shouldTick() {
+        if (iconified || !Bedroom.timesChosen()) return false;
+
+        // Once the shift is over, the time and needed orders are final
+        return !LocalDateTime.now().isAfter(Bedroom.getClockOutTime());
+    }
+
+    /**
+     * Tells the timer whether the main window is minimized, it stops ticking while it is
+     * and does an immediate catch-up refresh once the window is shown again.
+     */
+    public void setIconified(boolean iconified, Runnable catchUp) {
+        this.iconified = iconified;
+        if (!iconified) catchUp.run();
+        reschedule();
+    }
+
+    /** Returns the average amount of times this timer has fired per hour since it was created */
+    public float getWakeupsPerHour() {
+        long millisAlive = Math.max(System.currentTimeMillis() - createdAt, 1);
+        return wakeups * 3_600_000f / millisAlive;
+    }
+
+    public long getWakeups() {
+        return wakeups;
+    }
+
+}
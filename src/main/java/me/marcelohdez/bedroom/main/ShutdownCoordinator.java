@@ -0,0 +1,117 @@
+package me.marcelohdez.bedroom.main;
+
+import me.marcelohdez.bedroom.history.HistoryStore;
+import me.marcelohdez.bedroom.history.QuantileSketch;
+import me.marcelohdez.bedroom.history.ShiftHistory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.prefs.Preferences;
+
+/**
+ * Saves Bedroom's state as it exits, without holding up the window: orders are read from their thread-safe
+ * session and history from the last copy handed to {@link #historyChanged}, then both are written by
+ * background writers, which get {@link #DEADLINE_MILLIS} to finish before we exit anyway. Every file is
+ * replaced in one step, so a write cut short keeps the last saved copy, and shifts added to history are kept
+ * in preferences under {@link #UNSAVED_SHIFTS} until it is saved, so they can be added back on our next start.
+ * A shutdown hook saves the same state when we are ended some other way, ex: SIGTERM or the user logging out.
+ */
+public class ShutdownCoordinator {
+
+    public static final long DEADLINE_MILLIS = 3000; // Longest we wait for our state to be written
+    public static final String UNSAVED_SHIFTS = "unsavedShifts"; // Preference of shifts not in the history file
+
+    /**
+     * Shift history to save, copied so it can be written from any thread while the original keeps changing.
+     *
+     * @param history Shift history to save
+     * @param sketch Percentiles of the history
+     */
+    private record SavedHistory(ShiftHistory history, QuantileSketch sketch) {}
+
+    private final IntSupplier orders;
+    private final Preferences prefs;
+    private final Supplier<HistoryStore> store;
+    private final AtomicReference<SavedHistory> history = new AtomicReference<>(); // Null if it has not changed
+    private final AtomicBoolean started = new AtomicBoolean(false); // Only save once, however we exit
+
+    /**
+     * @param orders Returns orders done this shift, from any thread
+     * @param prefs Preferences to save the orders into
+     * @param store Where to save the history
+     */
+    public ShutdownCoordinator(IntSupplier orders, Preferences prefs, Supplier<HistoryStore> store) {
+        this.orders = orders;
+        this.prefs = prefs;
+        this.store = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveFromHook, "Shutdown save"));
+    }
+
+    /** Copies the given history to be saved upon exiting, called on the thread changing it after each change */
+    public void historyChanged(ShiftHistory changed, QuantileSketch sketch) {
+        history.set(new SavedHistory(new ShiftHistory(changed), new QuantileSketch(sketch)));
+    }
+
+    /** Saves our state in the background and exits, returning right away */
+    public void exit() {
+        if (!started.compareAndSet(false, true)) return; // Already exiting
+
+        int ordersDone = orders.getAsInt();
+        new Thread(() -> {
+            save(ordersDone);
+            System.exit(0);
+        }, "Shutdown").start();
+    }
+
+    /** Saves our state if we are ending without {@link #exit()}, the JVM waits for this to return */
+    private void saveFromHook() {
+        if (started.compareAndSet(false, true)) save(orders.getAsInt());
+    }
+
+    /** Writes our state, giving up on writes still running once our deadline passes */
+    private void save(int ordersDone) {
+        ExecutorService writers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Shutdown writer");
+            thread.setDaemon(true); // A stuck write, ex: on a network drive, must not keep us from exiting
+            return thread;
+        });
+
+        SavedHistory saved = history.get();
+        List<Future<?>> writes = new ArrayList<>();
+        writes.add(writers.submit(() -> {
+            prefs.putInt("orders", ordersDone);
+            prefs.flush(); // Along with any unsaved shifts, in case the history write fails
+            return null;
+        }));
+        if (saved != null) writes.add(writers.submit(() -> {
+            HistoryStore historyStore = store.get();
+            historyStore.save(saved.history());
+            historyStore.saveSketch(saved.sketch());
+            prefs.remove(UNSAVED_SHIFTS); // They are in the file now. If flushed anyway, next start skips them
+            prefs.flush();
+            return null;
+        }));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS);
+        for (Future<?> write : writes) {
+            try {
+                write.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                System.err.println("Gave up on saving after " + DEADLINE_MILLIS + "ms, the last save is kept " +
+                        "and unsaved shifts are added back on our next start");
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        writers.shutdownNow();
+    }
+
+}
@@ -0,0 +1,91 @@
+package me.marcelohdez.bedroom.main;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Times each phase of startup, from whichever thread runs it, so slow phases can be found with the
+ * "--trace-startup" flag. Times are measured from when this trace is created, as Bedroom loads.
+ */
+public class StartupTrace {
+
+    private record Phase(String name, String thread, long startNanos, long endNanos) {}
+
+    private final long createdAt = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>();
+
+    /** Runs the given phase on the current thread */
+    public void run(String name, Runnable phase) {
+        call(name, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    /** Runs the given phase on the current thread, returning its result */
+    public <T> T call(String name, Supplier<T> phase) {
+        long start = System.nanoTime();
+        try {
+            return phase.get();
+        } finally {
+            record(name, start, System.nanoTime());
+        }
+    }
+
+    /** Runs the given phase in the background, alongside whatever runs next */
+    public <T> CompletableFuture<T> callAsync(String name, Supplier<T> phase) {
+        return CompletableFuture.supplyAsync(() -> call(name, phase));
+    }
+
+    /** Records something happening now, ex: a window being shown */
+    public void mark(String name) {
+        long now = System.nanoTime();
+        record(name, now, now);
+    }
+
+    private synchronized void record(String name, long start, long end) {
+        phases.add(new Phase(name, Thread.currentThread().getName(), start, end));
+    }
+
+    /** Returns every phase recorded so far, by when they started */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder("Startup:\n");
+        long sinceProcessStart = millisSinceProcessStart();
+        if (sinceProcessStart >= 0) sb.append("  JVM start to Bedroom: $tms\n"
+                .replace("$t", String.valueOf(sinceProcessStart - millis(System.nanoTime()))));
+
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(Phase::startNanos));
+        for (Phase phase : sorted) {
+            String line = (phase.startNanos == phase.endNanos) ? "  $n at $sms\n" : "  $n: $sms to $ems ($dms, $r)\n";
+            sb.append(line
+                    .replace("$n", phase.name)
+                    .replace("$s", String.valueOf(millis(phase.startNanos)))
+                    .replace("$e", String.valueOf(millis(phase.endNanos)))
+                    .replace("$d", String.valueOf((phase.endNanos - phase.startNanos) / 1_000_000))
+                    .replace("$r", phase.thread));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns milliseconds since our process was started, which includes starting the JVM itself, or -1 if
+     * the system does not tell us when it was. Usually only precise to about 10ms.
+     */
+    public static long millisSinceProcessStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis())
+                .orElse(-1L);
+    }
+
+    /** Converts a System.nanoTime() value to milliseconds since this trace was created */
+    private long millis(long nanos) {
+        return (nanos - createdAt) / 1_000_000;
+    }
+
+}
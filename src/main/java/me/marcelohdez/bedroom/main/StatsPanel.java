@@ -0,0 +1,146 @@
+package me.marcelohdez.bedroom.main;
+
+import javax.accessibility.AccessibleContext;
+import javax.accessibility.AccessibleRole;
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A lightweight stand-in for a non-editable JTextArea, used to show the main window's stats.
+ * Lines are only measured when they change, so painting is just a few drawString calls.
+ */
+public class StatsPanel extends JComponent {
+
+    private String[] lines = new String[0];
+    private int[] lineWidths = new int[0];
+    private Dimension size = new Dimension(); // Size needed to show all lines
+
+    // Cached font values, reset when our font changes
+    private FontMetrics metrics;
+    private Map<?, ?> textHints;
+
+    public StatsPanel(String text, Font font) {
+        setOpaque(true);
+        setFont(font);
+        updateUI();
+        setText(text);
+    }
+
+    /**
+     * Shows the given text, each line being separated by a "\n".
+     *
+     * @param text Text to show
+     * @return Whether the space needed to show the text changed, meaning our window should be packed
+     */
+    public boolean setText(String text) {
+        String[] newLines = text.split("\n", -1); // Keep trailing empty lines, just like a text area would
+        if (Arrays.equals(newLines, lines)) return false;
+
+        String oldText = getText();
+        int[] newWidths = new int[newLines.length];
+        for (int i = 0; i < newLines.length; i++) { // Only measure lines which changed
+            newWidths[i] = (i < lines.length && newLines[i].equals(lines[i])) ?
+                    lineWidths[i] : getMetrics().stringWidth(newLines[i]);
+        }
+        lines = newLines;
+        lineWidths = newWidths;
+
+        if (accessibleContext != null) accessibleContext.firePropertyChange(
+                AccessibleContext.ACCESSIBLE_NAME_PROPERTY, oldText, getText());
+        repaint();
+        return updateSize();
+    }
+
+    public String getText() {
+        return String.join("\n", lines);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        metrics = null;
+
+        // Re-measure every line with our new font
+        for (int i = 0; i < lines.length; i++) lineWidths[i] = getMetrics().stringWidth(lines[i]);
+        if (updateSize()) revalidate();
+    }
+
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        // Match the colors a text area would get from our theme
+        LookAndFeel.installColors(this, "TextArea.background", "TextArea.foreground");
+        textHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+
+        Insets insets = getInsets();
+        return new Dimension(size.width + insets.left + insets.right, size.height + insets.top + insets.bottom);
+    }
+
+    @Override
+    protected void paintComponent(Graphics gfx) {
+        Graphics2D g = (Graphics2D) gfx;
+        Insets insets = getInsets();
+
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+
+        if (textHints != null) g.addRenderingHints(textHints);
+        g.setFont(getFont());
+        g.setColor(getForeground());
+
+        FontMetrics fm = getMetrics();
+        int y = insets.top + fm.getAscent();
+        for (String line : lines) {
+            g.drawString(line, insets.left, y);
+            y += fm.getHeight();
+        }
+    }
+
+    private FontMetrics getMetrics() {
+        if (metrics == null) metrics = getFontMetrics(getFont());
+        return metrics;
+    }
+
+    /** Recalculates the size needed to show our lines, returning whether it changed */
+    private boolean updateSize() {
+        int width = 0;
+        for (int w : lineWidths) width = Math.max(width, w);
+        Dimension newSize = new Dimension(width, lines.length * getMetrics().getHeight());
+
+        if (newSize.equals(size)) return false;
+        size = newSize;
+        return true;
+    }
+
+    @Override
+    public AccessibleContext getAccessibleContext() {
+        if (accessibleContext == null) accessibleContext = new AccessibleStatsPanel();
+        return accessibleContext;
+    }
+
+    /** Lets screen readers read our stats, just like they would a label's text */
+    protected class AccessibleStatsPanel extends AccessibleJComponent {
+
+        @Override
+        public String getAccessibleName() {
+            String name = super.getAccessibleName(); // Prefer any explicitly set name
+            return (name != null) ? name : getText();
+        }
+
+        @Override
+        public AccessibleRole getAccessibleRole() {
+            return AccessibleRole.LABEL;
+        }
+
+    }
+
+}
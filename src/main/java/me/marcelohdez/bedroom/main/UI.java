@@ -3,6 +3,7 @@ package me.marcelohdez.bedroom.main;
 import me.marcelohdez.bedroom.Bedroom;
 import me.marcelohdez.bedroom.dialog.FloatingSpinner;
 import me.marcelohdez.bedroom.dialog.alert.AlertDialog;
+import me.marcelohdez.bedroom.shift.RollingRate;
 import me.marcelohdez.bedroom.util.Ops;
 import me.marcelohdez.bedroom.util.Theme;
 import me.marcelohdez.bedroom.util.Time;
@@ -10,13 +11,30 @@ import me.marcelohdez.bedroom.util.Time;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.datatransfer.StringSelection;
+import java.awt.event.MouseEvent;
 
 public class UI extends JPanel {
 
-    // Components
-    private final JTextArea stats = new JTextArea("Please clock in.\n\n");
-    private final JButton breakButton = new JButton("Set Break");
-    private final JButton addOrder = new JButton("Add Order");
+    // Components, their tooltips are only made when Swing asks for them
+    private final StatsPanel stats = new StatsPanel("Please clock in.\n\n",
+            new Font(Font.SANS_SERIF, Font.PLAIN, 14)) {
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            return getStatsToolTip();
+        }
+    };
+    private final JButton breakButton = new JButton("Set Break") {
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            return getBreakButtonToolTip();
+        }
+    };
+    private final JButton addOrder = new JButton("Add Order") {
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            return getAddOrderToolTip();
+        }
+    };
 
     public enum Buttons {
         ADD_ORDER,
@@ -30,16 +48,24 @@ public class UI extends JPanel {
         // Right click menu components
         JPopupMenu statsPopup = new JPopupMenu("Stats");
         JMenuItem copyOrdersInfo = new JMenuItem("Copy orders/hr");
+        JMenuItem copyRecentOrdersInfo = new JMenuItem("Copy last 15/60 min orders/hr");
         JMenuItem editOrders = new JMenuItem("Set orders to...");
 
         // Init popup menu
         statsPopup.add(copyOrdersInfo);
+        statsPopup.add(copyRecentOrdersInfo);
         statsPopup.add(editOrders);
 
         copyOrdersInfo.addActionListener((e -> {
             StringSelection ordersPerHr = new StringSelection(Bedroom.getOrdersPerHour());
             Toolkit.getDefaultToolkit().getSystemClipboard().setContents(ordersPerHr, ordersPerHr);
         }));
+        copyRecentOrdersInfo.addActionListener((e -> {
+            StringSelection recent = new StringSelection("15m: $r, 60m: $R"
+                    .replace("$r", Bedroom.getRecentOrdersPerHour(RollingRate.SHORT_WINDOW))
+                    .replace("$R", Bedroom.getRecentOrdersPerHour(RollingRate.LONG_WINDOW)));
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(recent, recent);
+        }));
         editOrders.addActionListener((e) -> {
             if (Bedroom.getOrders() < 999) {
                 Bedroom.setOrders(new FloatingSpinner(Bedroom.getOrders(),
@@ -52,18 +78,20 @@ public class UI extends JPanel {
         });
 
         // Set components' properties
-        stats.setEditable(false);
-        stats.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
         stats.addKeyListener(parent);
         stats.setComponentPopupMenu(statsPopup);
         addOrder.addKeyListener(parent);
-        addOrder.addActionListener((e) -> Bedroom.setOrders(Bedroom.getOrders() + 1, true)); // Add an order
+        addOrder.addActionListener((e) -> Bedroom.getSession().addOrders(1)); // Add an order
         addOrder.setMargin(new Insets(17, 24, 17, 24));
         breakButton.addKeyListener(parent);
         breakButton.addActionListener((e) -> parent.enterBreak());
-        breakButton.setToolTipText("<html><b>Currently no break is set</b></html>"); // Default tooltip
         breakButton.setMargin(new Insets(17, 24, 17, 24));
 
+        // Register components with the tooltip manager, as we never set their tooltip text
+        ToolTipManager.sharedInstance().registerComponent(stats);
+        ToolTipManager.sharedInstance().registerComponent(breakButton);
+        ToolTipManager.sharedInstance().registerComponent(addOrder);
+
         // Add components
         add(breakButton);
         add(addOrder);
@@ -73,30 +101,34 @@ public class UI extends JPanel {
 
     }
 
-    public void display(String message) {
-        stats.setText(message);
-        setAddOrderToolTip();
-        setBreakButtonToolTip();
-        setStatsToolTip();
+    /**
+     * Shows the given message in the stats area.
+     *
+     * @return Whether the stats area's size changed, meaning our window should be packed.
+     */
+    public boolean display(String message) {
+        return stats.setText(message);
     }
 
-    private void setAddOrderToolTip() {
+    private String getAddOrderToolTip() {
+
+        if (!Bedroom.timesChosen()) return null; // Nothing to tell until we have a shift
 
         if (Bedroom.getOrdersLeftForTarget() > 0) { // Tell us how many orders we need to reach our target
-            addOrder.setToolTipText("<html><b>You are $n orders behind your hourly target."
-                    .replace("$n", String.valueOf(Bedroom.getOrdersLeftForTarget())));
+            return "<html><b>You are $n orders behind your hourly target."
+                    .replace("$n", String.valueOf(Bedroom.getOrdersLeftForTarget()));
         } else if (Bedroom.getOrders() > Bedroom.getOrdersNeeded()) {
-            addOrder.setToolTipText("<html><b>You are done for the day!</b></html>");
+            return "<html><b>You are done for the day!</b></html>";
         } else { // If we have gotten all the orders needed for our shift.
-            addOrder.setToolTipText("<html><b>You are on track with your hourly target</b></html>");
+            return "<html><b>You are on track with your hourly target</b></html>";
         }
 
     }
 
-    private void setBreakButtonToolTip() {
+    private String getBreakButtonToolTip() {
 
-        if (Bedroom.breakTimesChosen()) { // If we have chosen break times, change the tooltip to them.
-            breakButton.setToolTipText("<html><b>Current break: $s-$e</b></html>"
+        if (Bedroom.breakTimesChosen()) { // If we have chosen break times, show them.
+            return "<html><b>Current break: $s-$e</b></html>"
                     // Start time:
                     .replace("$s", (Bedroom.isOvernightShift() ?
                             Bedroom.getBreakStart().getDayOfWeek().toString().substring(0, 3) : "") +
@@ -104,19 +136,23 @@ public class UI extends JPanel {
                     // End time:
                     .replace("$e", (Bedroom.isOvernightShift() ?
                             Bedroom.getBreakEnd().getDayOfWeek().toString().substring(0, 3) : "") +
-                            Time.makeTime12Hour(Bedroom.getBreakEnd().toLocalTime())));
-        }
+                            Time.makeTime12Hour(Bedroom.getBreakEnd().toLocalTime()));
+        } else return "<html><b>Currently no break is set</b></html>";
 
     }
 
-    private void setStatsToolTip() {
+    private String getStatsToolTip() {
 
         if (Bedroom.getLastOrderChange() > 0) {
             long secondsSince = (System.currentTimeMillis() - Bedroom.getLastOrderChange()) / 1000;
-
-            stats.setToolTipText("<html><b>Last order change was $ts ago</b></html>"
-                    .replace("$t", Time.secondsToTime(secondsSince)));
-        }
+            double percentile = Bedroom.getHistoryPercentile(Bedroom.getOrders() * 3600f / Bedroom.getSecondsWorked());
+
+            return "<html><b>Last order change was $ts ago$p</b></html>"
+                    .replace("$t", Time.secondsToTime(secondsSince))
+                    .replace("$p", Double.isNaN(percentile) ? "" :
+                            "<br>Today is at the $pth percentile of your shifts"
+                                    .replace("$p", String.valueOf(Math.round(percentile))));
+        } else return null;
 
     }
 
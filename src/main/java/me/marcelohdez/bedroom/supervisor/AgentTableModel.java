@@ -0,0 +1,95 @@
+package me.marcelohdez.bedroom.supervisor;
+
+import me.marcelohdez.bedroom.shift.SessionRegistry;
+import me.marcelohdez.bedroom.shift.ShiftSnapshot;
+import me.marcelohdez.bedroom.shift.ShiftStats;
+import me.marcelohdez.bedroom.shift.TimePlan;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
+
+/**
+ * Shows every agent of a {@link SessionRegistry} as a row. Nothing is stored per row: stats are calculated
+ * when a row is painted, so only the rows on screen cost anything, and {@link #tick(int, int)} is the only
+ * thing telling the table to repaint.
+ */
+public class AgentTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Agent", "Orders", "Orders/hr", "Needed", "Status"};
+
+    private final SessionRegistry registry;
+    private int rows = 0;
+    private LocalDateTime now = LocalDateTime.now(); // Time of our last tick, so a whole table shows one moment
+
+    // Stats of the last row asked for, as tables ask for every column of a row one after another
+    private int cachedRow = -1;
+    private ShiftSnapshot cachedSnapshot;
+    private ShiftStats cachedStats;
+
+    public AgentTableModel(SessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Adds rows for agents who joined since our last tick, and updates the given range of rows,
+     * which should be the ones on screen.
+     */
+    public void tick(int firstRow, int lastRow) {
+        now = LocalDateTime.now();
+        cachedRow = -1;
+
+        int newRows = registry.size();
+        if (newRows > rows) {
+            int oldRows = rows;
+            rows = newRows;
+            fireTableRowsInserted(oldRows, newRows - 1);
+        }
+
+        if (firstRow >= 0 && lastRow >= firstRow) fireTableRowsUpdated(firstRow, Math.min(lastRow, rows - 1));
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column == 0) return registry.get(row).agent();
+
+        if (row != cachedRow) {
+            cachedRow = row;
+            cachedSnapshot = registry.get(row).session().snapshot();
+            cachedStats = cachedSnapshot.plan().timesChosen() ? ShiftStats.of(cachedSnapshot, now) : null;
+        }
+
+        boolean working = cachedStats != null && cachedSnapshot.plan().clockInPassed(now);
+        return switch (column) {
+            case 1 -> cachedSnapshot.orders();
+            case 2 -> working ? cachedStats.ordersPerHourText() : "";
+            case 3 -> cachedStats != null ? String.valueOf(cachedStats.ordersNeeded()) : "";
+            default -> getStatus(cachedSnapshot.plan(), working);
+        };
+    }
+
+    private String getStatus(TimePlan plan, boolean working) {
+        if (!plan.timesChosen()) return "No shift";
+        if (!working) return "Not clocked in";
+        if (plan.isInBreak(now)) return "On break";
+
+        int left = cachedStats.ordersLeftForTarget();
+        String status = (left > 0) ? "Behind by " + left : "On target";
+        return now.isAfter(plan.clockOut()) ? "Done, " + status.toLowerCase() : status;
+    }
+
+}
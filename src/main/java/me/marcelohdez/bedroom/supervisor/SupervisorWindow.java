@@ -0,0 +1,80 @@
+package me.marcelohdez.bedroom.supervisor;
+
+import me.marcelohdez.bedroom.Bedroom;
+import me.marcelohdez.bedroom.rank.RankingEngine;
+import me.marcelohdez.bedroom.shift.SessionRegistry;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDateTime;
+
+/**
+ * Dashboard of every agent's shift in supervisor mode. A single timer refreshes the whole table once a second,
+ * no matter how many agents there are, and only the rows on screen are repainted.
+ */
+public class SupervisorWindow extends JFrame {
+
+    private final AgentTableModel model;
+    private final JTable table;
+    private final RankingEngine ranking;
+    private final JLabel behindLabel = new JLabel(" ");
+    private final Timer tick;
+
+    public SupervisorWindow(SessionRegistry registry, int port) {
+        model = new AgentTableModel(registry);
+        table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        ranking = new RankingEngine(registry, SwingUtilities::invokeLater);
+        behindLabel.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+
+        JLabel info = new JLabel("Agents send \"<name> <command>\" lines to localhost:" + port);
+        info.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+
+        setTitle("Bedroom " + Bedroom.VERSION + " - Supervisor");
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        add(info, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(behindLabel, BorderLayout.SOUTH);
+        setSize(520, 400);
+        setLocationRelativeTo(null);
+
+        tick = new Timer(1000, e -> refresh());
+        tick.start();
+        setVisible(true);
+    }
+
+    /** Updates the rows currently on screen and the agents furthest behind, and adds any new agents */
+    private void refresh() {
+        ranking.tick(LocalDateTime.now());
+        updateBehindLabel();
+
+        Rectangle visible = table.getVisibleRect();
+        int first = table.rowAtPoint(visible.getLocation());
+        int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        if (first >= 0 && last < 0) last = model.getRowCount() - 1; // The table ends before the viewport does
+
+        model.tick(first, last);
+    }
+
+    private void updateBehindLabel() {
+        RankingEngine.Ranked[] behind = ranking.top(5);
+        if (behind.length == 0) {
+            behindLabel.setText("Everyone is on target.");
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder("Furthest behind: ");
+        for (int i = 0; i < behind.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(behind[i].agent()).append(" (").append(behind[i].deficit()).append(")");
+        }
+        behindLabel.setText(sb.toString());
+    }
+
+    @Override
+    public void dispose() {
+        tick.stop();
+        super.dispose();
+    }
+
+}
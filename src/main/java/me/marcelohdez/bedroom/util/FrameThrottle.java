@@ -0,0 +1,35 @@
+package me.marcelohdez.bedroom.util;
+
+import javax.swing.*;
+
+/**
+ * Runs an action on the EDT at most once per frame, no matter how many times it is requested in between.
+ * Useful for work which only needs to catch up with the latest state, such as saving or repainting.
+ */
+public class FrameThrottle {
+
+    public static final int FRAME_MILLIS = 16; // About 60 frames per second
+
+    private final Runnable action;
+    private final Timer timer;
+
+    public FrameThrottle(Runnable action) {
+        this.action = action;
+        timer = new Timer(FRAME_MILLIS, e -> action.run());
+        timer.setRepeats(false);
+    }
+
+    /** Requests the action to be run on the next frame, if it has not been requested already */
+    public void request() {
+        if (!timer.isRunning()) timer.start();
+    }
+
+    /** Runs a requested action right away instead of waiting for the next frame */
+    public void flush() {
+        if (timer.isRunning()) {
+            timer.stop();
+            action.run();
+        }
+    }
+
+}
@@ -2,9 +2,29 @@ package me.marcelohdez.bedroom.util;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Ops { // Operations
 
+    // Number lists made so far, by their arguments, shared by every combo box showing them
+    private static final Map<String, List<String>> numberLists = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a model of {@link #createNumberList(boolean, int, int, String)}'s numbers for a combo box. The
+     * numbers are only made once, each model shares them and only keeps its own selection.
+     */
+    public static ComboBoxModel<String> numberListModel(boolean addZeroUnder10, int start, int end, String extraText) {
+        return new SharedListModel<>(getNumberList(addZeroUnder10, start, end, extraText));
+    }
+
+    /** Returns the same numbers as {@link #createNumberList(boolean, int, int, String)}, made only once */
+    public static List<String> getNumberList(boolean addZeroUnder10, int start, int end, String extraText) {
+        return numberLists.computeIfAbsent(addZeroUnder10 + " " + start + " " + end + " " + extraText,
+                key -> List.of(createNumberList(addZeroUnder10, start, end, extraText)));
+    }
+
     /**
      * Creates a String[] of numbers with optional added text to each.
      *
@@ -2,18 +2,39 @@ package me.marcelohdez.bedroom.util;
 
 import me.marcelohdez.bedroom.Bedroom;
 import me.marcelohdez.bedroom.dialog.alert.AlertDialog;
+import me.marcelohdez.bedroom.history.HistoryStore;
+import me.marcelohdez.bedroom.history.ShiftHistory;
+import me.marcelohdez.bedroom.shift.WeeklySchedule;
 
+import javax.swing.*;
 import javax.swing.filechooser.FileSystemView;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Scanner;
-import java.util.TreeMap;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 public final class Settings {
 
-    private static boolean isDoneLoadingShiftHistory = false;
+    /** Settings changes windows may want to know of, so each only reloads what it shows */
+    public enum Change {
+        COLORS, // Theme's colors or high contrast changed, and are already reloaded
+        ALWAYS_ON_TOP,
+        STATS_FORMAT // Whether more shift info is shown
+    }
+
+    // Listeners of each change, only used on the event thread
+    private static final Map<Change, List<Runnable>> listeners = new EnumMap<>(Change.class);
+    static {
+        for (Change change : Change.values()) listeners.put(change, new ArrayList<>());
+    }
+
+    private static boolean isDoneLoadingShiftHistory = false; // Only used on the event thread
 
     // Settings variables, to return when called on methods.
     private static boolean useSystemLAF = Bedroom.userPrefs.getBoolean("useSystemLAF", true);
@@ -22,6 +43,11 @@ public final class Settings {
     private static boolean recoverFromCrashes = Bedroom.userPrefs.getBoolean("recoverFromCrashes", true);
     private static boolean askBeforeEarlyClose = Bedroom.userPrefs.getBoolean("askBeforeEarlyClose", true);
     private static boolean showMoreShiftInfo = Bedroom.userPrefs.getBoolean("showMoreShiftInfo", false);
+    private static boolean accelerateOrderKeys = Bedroom.userPrefs.getBoolean("accelerateOrderKeys", false);
+    private static boolean acceptScriptOrders = Bedroom.userPrefs.getBoolean("acceptScriptOrders", false);
+    private static final int scriptOrdersPort = Bedroom.userPrefs.getInt("scriptOrdersPort", 48620);
+    private static boolean watchOrderFolder = Bedroom.userPrefs.getBoolean("watchOrderFolder", false);
+    private static final String orderFolderName = Bedroom.userPrefs.get("orderFolderName", "order-spool");
     private static int defaultShiftLength = Bedroom.userPrefs.getInt("defaultShiftLength", 4);
     private static int defaultTarget = Bedroom.userPrefs.getInt("defaultTarget", 9);
 
@@ -29,6 +55,33 @@ public final class Settings {
     private static final String workingDir =
             FileSystemView.getFileSystemView().getDefaultDirectory().getPath() + File.separator + "bedroom-data";
 
+    static { // Saved so the command line finds the same folder, as it can not ask the system for it
+        Bedroom.userPrefs.put(HistoryStore.FOLDER_PREF, workingDir);
+    }
+
+    /**
+     * Runs the given listener on the event thread whenever the given change happens, until the given window
+     * is closed.
+     *
+     * @param owner Window the listener updates
+     * @param change Change to listen for
+     * @param listener Listener to run
+     */
+    public static void subscribe(Window owner, Change change, Runnable listener) {
+        listeners.get(change).add(listener);
+        owner.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                listeners.get(change).remove(listener);
+                owner.removeWindowListener(this);
+            }
+        });
+    }
+
+    private static void publish(Change change) {
+        for (Runnable listener : List.copyOf(listeners.get(change))) listener.run(); // Listeners may unsubscribe
+    }
+
     /**
      * Check if highContrast is enabled in user preferences
      *
@@ -47,49 +100,69 @@ public final class Settings {
      * @param bgRGB int[] of the background colors
      */
     public static void saveColors(int[] textRGB, int[] buttonTextRGB, int[] buttonRGB, int[] bgRGB) {
+        if (putColors(textRGB, buttonTextRGB, buttonRGB, bgRGB)) colorsChanged();
+    }
+
+    /** Saves color values without reloading them, returning whether any changed */
+    private static boolean putColors(int[] textRGB, int[] buttonTextRGB, int[] buttonRGB, int[] bgRGB) {
 
-        // text colors
-        Bedroom.userPrefs.putInt("textRed", textRGB[0]);
-        Bedroom.userPrefs.putInt("textGreen", textRGB[1]);
-        Bedroom.userPrefs.putInt("textBlue", textRGB[2]);
+        // Each color is kept packed as a single ARGB int
+        boolean changed = putColor("textColor", textRGB);
+        changed |= putColor("buttonTextColor", buttonTextRGB);
+        changed |= putColor("buttonColor", buttonRGB);
+        changed |= putColor("bgColor", bgRGB);
+        removeChannelKeys();
+        return changed;
 
-        // button text colors
-        Bedroom.userPrefs.putInt("buttonTextRed", buttonTextRGB[0]);
-        Bedroom.userPrefs.putInt("buttonTextGreen", buttonTextRGB[1]);
-        Bedroom.userPrefs.putInt("buttonTextBlue", buttonTextRGB[2]);
+    }
 
-        // button colors
-        Bedroom.userPrefs.putInt("buttonRed", buttonRGB[0]);
-        Bedroom.userPrefs.putInt("buttonGreen", buttonRGB[1]);
-        Bedroom.userPrefs.putInt("buttonBlue", buttonRGB[2]);
+    /** Saves a packed color, returning whether it is different from the one saved before */
+    private static boolean putColor(String key, int[] rgb) {
+        int argb = Theme.packRGB(rgb);
+        if (Bedroom.userPrefs.getInt(key, 0) == argb) return false;
 
-        // background colors
-        Bedroom.userPrefs.putInt("bgRed", bgRGB[0]);
-        Bedroom.userPrefs.putInt("bgGreen", bgRGB[1]);
-        Bedroom.userPrefs.putInt("bgBlue", bgRGB[2]);
+        Bedroom.userPrefs.putInt(key, argb);
+        return true;
+    }
+
+    /**
+     * Shows the given colors on every window without saving them, see {@link Theme#previewColors}.
+     */
+    public static void previewColors(int[] textRGB, int[] buttonTextRGB, int[] buttonRGB, int[] bgRGB) {
+        Theme.previewColors(textRGB, buttonTextRGB, buttonRGB, bgRGB);
+        publish(Change.COLORS);
+    }
 
+    private static void colorsChanged() {
+        Theme.reloadColors();
+        publish(Change.COLORS);
     }
 
     public static void enableHighContrast(boolean enable) {
+        boolean changed = enable != isContrastEnabled();
+        Bedroom.userPrefs.putBoolean("highContrast", enable); // Save new value, before colors are reloaded
         if (enable) { // Set theme to high contrast values
             useSystemLAF = false; // Disable System LAF to not clash with colors
             int[] textRGB = new int[]{255, 255, 255};
             int[] buttonTextRGB = new int[]{255, 255, 255};
             int[] buttonRGB = new int[]{0, 0, 0};
             int[] bgRGB = new int[]{0, 0, 0};
-            saveColors(textRGB, buttonTextRGB, buttonRGB, bgRGB);
+            changed |= putColors(textRGB, buttonTextRGB, buttonRGB, bgRGB);
         }
-        Bedroom.userPrefs.putBoolean("highContrast", enable); // Save new value
+        if (changed) colorsChanged(); // Accents change with high contrast, even if colors did not
     }
 
     public static void setAlwaysOnTop(boolean alwaysOnTop) {
+        if (Settings.alwaysOnTop == alwaysOnTop) return;
+
         Settings.alwaysOnTop = alwaysOnTop;
-        Bedroom.userPrefs.putBoolean("askBeforeEarlyClose", alwaysOnTop);
+        Bedroom.userPrefs.putBoolean("alwaysOnTop", alwaysOnTop);
+        publish(Change.ALWAYS_ON_TOP);
     }
 
     public static void setAskBeforeEarlyClose(boolean ask) {
         askBeforeEarlyClose = ask;
-        Bedroom.userPrefs.putBoolean("alwaysOnTop", ask);
+        Bedroom.userPrefs.putBoolean("askBeforeEarlyClose", ask);
     }
 
     public static void setDefaultShiftLength(int newDefault) {
@@ -108,8 +181,26 @@ public final class Settings {
     }
 
     public static void enableExtraShiftInfo(boolean enable) {
+        if (showMoreShiftInfo == enable) return;
+
         showMoreShiftInfo = enable;
         Bedroom.userPrefs.putBoolean("showMoreShiftInfo", enable);
+        publish(Change.STATS_FORMAT);
+    }
+
+    public static void enableOrderKeyAcceleration(boolean enable) {
+        accelerateOrderKeys = enable;
+        Bedroom.userPrefs.putBoolean("accelerateOrderKeys", enable);
+    }
+
+    public static void enableScriptOrders(boolean enable) {
+        acceptScriptOrders = enable;
+        Bedroom.userPrefs.putBoolean("acceptScriptOrders", enable);
+    }
+
+    public static void enableOrderFolder(boolean enable) {
+        watchOrderFolder = enable;
+        Bedroom.userPrefs.putBoolean("watchOrderFolder", enable);
     }
 
     public static void enableSystemLAF(boolean enable) {
@@ -121,25 +212,20 @@ public final class Settings {
     }
 
     private static void removeColors() {
-        // text colors
-        Bedroom.userPrefs.remove("textRed");
-        Bedroom.userPrefs.remove("textGreen");
-        Bedroom.userPrefs.remove("textBlue");
-
-        // button text colors
-        Bedroom.userPrefs.remove("buttonTextRed");
-        Bedroom.userPrefs.remove("buttonTextGreen");
-        Bedroom.userPrefs.remove("buttonTextBlue");
-
-        // button colors
-        Bedroom.userPrefs.remove("buttonRed");
-        Bedroom.userPrefs.remove("buttonGreen");
-        Bedroom.userPrefs.remove("buttonBlue");
+        Bedroom.userPrefs.remove("textColor");
+        Bedroom.userPrefs.remove("buttonTextColor");
+        Bedroom.userPrefs.remove("buttonColor");
+        Bedroom.userPrefs.remove("bgColor");
+        removeChannelKeys();
+    }
 
-        // background colors
-        Bedroom.userPrefs.remove("bgRed");
-        Bedroom.userPrefs.remove("bgGreen");
-        Bedroom.userPrefs.remove("bgBlue");
+    /** Removes the one key per channel colors were kept in before being packed, if they are still around */
+    private static void removeChannelKeys() {
+        for (String color : new String[]{"text", "buttonText", "button", "bg"}) {
+            Bedroom.userPrefs.remove(color + "Red");
+            Bedroom.userPrefs.remove(color + "Green");
+            Bedroom.userPrefs.remove(color + "Blue");
+        }
     }
 
     /**
@@ -192,6 +278,41 @@ public final class Settings {
         return showMoreShiftInfo;
     }
 
+    /**
+     * @return Whether holding the Up/Down keys should add or remove orders faster over time
+     */
+    public static boolean isOrderKeyAccelerationEnabled() {
+        return accelerateOrderKeys;
+    }
+
+    /**
+     * @return Whether scripts on this computer may add orders through the order server
+     */
+    public static boolean isScriptOrdersEnabled() {
+        return acceptScriptOrders;
+    }
+
+    /**
+     * @return Port the order server listens on, only reachable from this computer
+     */
+    public static int getScriptOrdersPort() {
+        return scriptOrdersPort;
+    }
+
+    /**
+     * @return Whether orders should be read from files dropped into the order folder
+     */
+    public static boolean isOrderFolderEnabled() {
+        return watchOrderFolder;
+    }
+
+    /**
+     * @return Path to the folder order files are dropped into, inside the working directory
+     */
+    public static String getOrderFolder() {
+        return workingDir + File.separator + orderFolderName;
+    }
+
     /**
      * @return Default amount of hours in a shift.
      */
@@ -206,10 +327,31 @@ public final class Settings {
         return defaultTarget;
     }
 
+    /**
+     * @return The user's weekly schedule, empty if none was saved or it can not be read
+     */
+    public static WeeklySchedule getSchedule() {
+        try {
+            return WeeklySchedule.parse(Bedroom.userPrefs.get("schedule", ""));
+        } catch (RuntimeException e) { // Ask for shift times as usual rather than guessing them
+            e.printStackTrace();
+            return WeeklySchedule.EMPTY;
+        }
+    }
+
+    public static void setSchedule(WeeklySchedule schedule) {
+        Bedroom.userPrefs.put("schedule", schedule.toString());
+    }
+
     public static boolean isDoneLoadingShiftHistory() {
         return isDoneLoadingShiftHistory;
     }
 
+    /** Called on the event thread once the loaded shift history is in use */
+    public static void setDoneLoadingShiftHistory() {
+        isDoneLoadingShiftHistory = true;
+    }
+
     /**
      * Returns an ArrayList<String> from the String of startup items saved in preferences.
      *
@@ -240,87 +382,35 @@ public final class Settings {
     }
 
     /**
-     * Returns a TreeMap<LocalDate, Float> of past shifts.
-     *
-     * @return A TreeMap<LocalDate, Float> from the string's values
+     * @return Store of our shift history file, kept in our working directory
      */
-    public static TreeMap<LocalDate, Float> loadShiftHistory() {
-
-        TreeMap<LocalDate, Float> tm = new TreeMap<>();
-        String str = readShiftHistory();
-
-        if (!str.equals("{}")) { // If the string is not an empty TreeMap: (to avoid null exceptions)
-
-            int start = 1; // Start 1 character ahead to avoid the beginning bracket
-            int end = start;
-            String currentKey = "";
-            int fails = 0; // Keep track of failed attempts at parsing the dates read, if any.
-            for (int i = 1; i < str.length() - 1; i++) { // -1 character from the end to avoid ending bracket
-
-                if (str.charAt(i) != 44) { // If it is not a comma then check:
-                    if (str.charAt(i) != 61) { // If it is not a = then extend endpoint
-                        end++;
-                    } else { // If it is a =,
-                        currentKey = str.substring(start, end); // Save this substring as the key
-                        start = i + 1; // Go a characters ahead to start on float value.
-                        end = i + 1;
-                    }
-                } else { // Else if it is a comma, set the key we got before the = to the value after the =.
-                    if (canParseString(currentKey)) {
-                        tm.put(LocalDate.parse(currentKey), Float.valueOf(str.substring(start, end)));
-                    } else fails++;
-                    start = i + 2; // Go 2 characters ahead to avoid the space in between items.
-                    end = i + 1;
-                }
-
-            }
-            // Once loop is finished add last bit
-            if (canParseString(currentKey)) {
-                tm.put(LocalDate.parse(currentKey), Float.valueOf(str.substring(start, end)));
-            } else fails++;
-
-            if (fails > 0) new AlertDialog(null, """
-                        Bedroom was unable to load
-                        some dates from your past
-                        shifts, it has recovered
-                        what it could.""");
-
-        }
-
-        isDoneLoadingShiftHistory = true;
-        return tm;
-
-    }
-
-    private static boolean canParseString(String string) {
-        try {
-            LocalDate.parse(string);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+    public static HistoryStore getHistoryStore() {
+        return new HistoryStore(Path.of(workingDir));
     }
 
     /**
-     * Read the line of past history data from its file if available
+     * Returns past shifts. May be called from any thread.
      *
-     * @return The string of past history data.
+     * @return A ShiftHistory from the history file's values
      */
-    private static String readShiftHistory() {
-
-        File file = new File(Settings.getWorkingDir() + File.separator + "shift.history"); // Get file
+    public static ShiftHistory loadShiftHistory() {
 
-        if (file.exists()) {
-            try (Scanner reader = new Scanner(file)) {
+        HistoryStore store = getHistoryStore();
+        ShiftHistory tm;
+        try {
+            tm = store.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            tm = new ShiftHistory();
+        }
 
-                if (reader.hasNextLine()) // Read the next line (we only save history in a single line)
-                    return reader.nextLine();
+        if (store.getSkippedDates() > 0) SwingUtilities.invokeLater(() -> new AlertDialog(null, """
+                    Bedroom was unable to load
+                    some dates from your past
+                    shifts, it has recovered
+                    what it could."""));
 
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        return "{}"; // Return this if file does not exist or is empty
+        return tm;
 
     }
 
@@ -0,0 +1,47 @@
+package me.marcelohdez.bedroom.util;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A combo box model over an unchanging list of items, which any amount of boxes can share without copying it,
+ * as only the selected item is kept per model. Like DefaultComboBoxModel, the first item starts selected.
+ */
+public class SharedListModel<E> extends AbstractListModel<E> implements ComboBoxModel<E> {
+
+    private final List<E> items; // Never changed, so it is safe to share
+    private Object selected;
+
+    /**
+     * @param items Items to show, which must not change afterwards, ex: from List.of()
+     */
+    public SharedListModel(List<E> items) {
+        this.items = items;
+        selected = items.isEmpty() ? null : items.get(0);
+    }
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public E getElementAt(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (Objects.equals(selected, item)) return;
+
+        selected = item;
+        fireContentsChanged(this, -1, -1); // What JComboBox listens for to update its selection
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.marcelohdez.bedroom.util;
+
+import me.marcelohdez.bedroom.dialog.alert.YesNoDialog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+
+/**
+ * Opens startup items in the background, each on its own thread so a slow or hung one does not hold up the
+ * others or the window. Items which are missing, fail, or do not open in time are collected, so they can be
+ * reported all at once.
+ */
+public class StartupItemLauncher {
+
+    public static final long TIMEOUT_SECONDS = 10; // Longest we wait for an item to open
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Startup item");
+        thread.setDaemon(true); // A hung item must not keep us from exiting
+        return thread;
+    });
+
+    /**
+     * Opens the given items, asking on the event thread before opening any .jar file.
+     *
+     * @param items Paths of the items to open
+     * @return The problems found, one line per item, completed once every item has opened or timed out
+     */
+    public CompletableFuture<List<String>> launch(String[] items) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> problems = new ArrayList<>();
+            List<File> files = new ArrayList<>();
+            List<Future<?>> launches = new ArrayList<>();
+            List<Long> startTimes = new ArrayList<>();
+
+            for (String item : items) {
+                if (item.isEmpty()) continue;
+                File file = new File(item);
+                if (!file.exists()) {
+                    problems.add(file.getName() + " no longer exists");
+                } else if (!item.toLowerCase(Locale.ROOT).endsWith(".jar") || confirmJar(file)) {
+                    files.add(file);
+                    startTimes.add(System.nanoTime());
+                    launches.add(executor.submit(() -> {
+                        Desktop.getDesktop().open(file);
+                        return null;
+                    }));
+                }
+            }
+
+            for (int i = 0; i < launches.size(); i++) {
+                long waited = System.nanoTime() - startTimes.get(i);
+                try {
+                    launches.get(i).get(Math.max(TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS) - waited, 0),
+                            TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    launches.get(i).cancel(true);
+                    problems.add(files.get(i).getName() + " did not open within " + TIMEOUT_SECONDS + "s");
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    problems.add(files.get(i).getName() + " could not be opened");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            executor.shutdown(); // Threads of hung items stay until they are done, as they can not be stopped
+            return problems;
+        }, executor);
+    }
+
+    /** Asks the user whether a .jar file may be opened, waiting for their answer */
+    private static boolean confirmJar(File jar) {
+        boolean[] accepted = new boolean[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> accepted[0] = new YesNoDialog(null, """
+                    For safety reasons, Bedroom does not
+                    automatically open .jar files so users
+                    do not create an endless loop of
+                    Bedroom processes, is this startup item
+                    ok to run?:
+                    
+                    """ + jar.getName()).accepted());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+        return accepted[0];
+    }
+
+}
@@ -3,7 +3,14 @@ package me.marcelohdez.bedroom.util;
 import me.marcelohdez.bedroom.Bedroom;
 
 import javax.swing.*;
+import javax.swing.plaf.ColorUIResource;
+import javax.swing.plaf.UIResource;
 import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A class for some coloring/theming methods as well as holding the current theme's color values
@@ -21,6 +28,16 @@ public final class Theme {
     private static Color buttonColor = loadColorOf("button", 80);
     private static Color bg = loadColorOf("bg", 64);
 
+    // UIManager defaults of the last few themes used, so switching back and forth does not create them again.
+    // Key: look and feel, whether it is the system's, high contrast and the four colors
+    private static final Map<List<Object>, Map<String, Object>> defaultsCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Map<String, Object>> eldest) {
+            return size() > 8; // Previewing colors creates a theme per frame, so only keep recent ones
+        }
+    };
+    private static Map<String, Object> appliedDefaults = Map.of(); // Defaults we put in UIManager last
+
     /**
      * Colors the given JComponents' background and foreground after being created.
      * Used for UIs that can have their colors changed after initializing.
@@ -94,38 +111,76 @@ public final class Theme {
 
     /**
      * Sets color accents not accessible through setForeground or setBackground.
-     * Hence, this only works before creating the components.
+     * Hence, this only works before creating the components, or before updating their UI.
      * Also takes into account high contrast, if it is enabled accents will be much
      * more exaggerated, and certain colors will change.
      */
     public static void setColors() {
 
+        // Go back to the look and feel's own defaults, then put the ones for the current theme on top
+        for (String key : appliedDefaults.keySet()) UIManager.put(key, null);
+        List<Object> theme = List.of(UIManager.getLookAndFeel().getClass().getName(), Settings.isSystemLAFEnabled(),
+                Settings.isContrastEnabled(), textColor, buttonTextColor, buttonColor, bg);
+        appliedDefaults = defaultsCache.computeIfAbsent(theme, t -> createDefaults());
+        appliedDefaults.forEach(UIManager::put);
+
+    }
+
+    /**
+     * Creates the UIManager defaults for the current theme. Colors are UIResources, so switching the look
+     * and feel replaces them like any other default.
+     */
+    private static Map<String, Object> createDefaults() {
+
+        Map<String, Object> defaults = new HashMap<>();
         if (!Settings.isSystemLAFEnabled()) {
             Color c = contrastWithShade(buttonColor, Settings.isContrastEnabled() ? 240 : 30);
-            UIManager.put("Button.select", c);
-            UIManager.put("Button.background", getButtonColor());
-            UIManager.put("Button.foreground", getButtonTextColor());
-            UIManager.put("Panel.background", getBgColor());
-            UIManager.put("Label.foreground", getTextColor());
-            UIManager.put("ComboBox.background", getButtonColor());
-            UIManager.put("ComboBox.foreground", getButtonTextColor());
-            UIManager.put("Button.focus", c);
-            UIManager.put("ComboBox.selectionBackground", c);
-            UIManager.put("ComboBox.selectionForeground", Settings.isContrastEnabled() ? contrastWithBnW(c) : buttonTextColor);
-            UIManager.put("List.background", getBgColor());
-            UIManager.put("List.foreground", getTextColor());
-            UIManager.put("CheckBox.background", getBgColor());
-            UIManager.put("CheckBox.foreground", getTextColor());
-            UIManager.put("Slider.background", getBgColor());
-            UIManager.put("List.selectionBackground", c);
-            UIManager.put("List.selectionForeground", Settings.isContrastEnabled() ? contrastWithBnW(c) : buttonTextColor);
-            UIManager.put("ScrollBar.background", bg);
-            UIManager.put("ToolTip.background", Color.WHITE);
+            Color selectionText = Settings.isContrastEnabled() ? contrastWithBnW(c) : buttonTextColor;
+            defaults.put("Button.select", new ColorUIResource(c));
+            defaults.put("Button.background", new ColorUIResource(getButtonColor()));
+            defaults.put("Button.foreground", new ColorUIResource(getButtonTextColor()));
+            defaults.put("Panel.background", new ColorUIResource(getBgColor()));
+            defaults.put("Label.foreground", new ColorUIResource(getTextColor()));
+            defaults.put("ComboBox.background", new ColorUIResource(getButtonColor()));
+            defaults.put("ComboBox.foreground", new ColorUIResource(getButtonTextColor()));
+            defaults.put("Button.focus", new ColorUIResource(c));
+            defaults.put("ComboBox.selectionBackground", new ColorUIResource(c));
+            defaults.put("ComboBox.selectionForeground", new ColorUIResource(selectionText));
+            defaults.put("List.background", new ColorUIResource(getBgColor()));
+            defaults.put("List.foreground", new ColorUIResource(getTextColor()));
+            defaults.put("CheckBox.background", new ColorUIResource(getBgColor()));
+            defaults.put("CheckBox.foreground", new ColorUIResource(getTextColor()));
+            defaults.put("Slider.background", new ColorUIResource(getBgColor()));
+            defaults.put("List.selectionBackground", new ColorUIResource(c));
+            defaults.put("List.selectionForeground", new ColorUIResource(selectionText));
+            defaults.put("ScrollBar.background", new ColorUIResource(bg));
+            defaults.put("ToolTip.background", new ColorUIResource(Color.WHITE));
         }
 
-        UIManager.put("TextArea.background", UIManager.getColor("Panel.background"));
-        UIManager.put("TextArea.foreground", UIManager.getColor("Label.foreground"));
+        // Text areas look like labels, in whichever look and feel is in use
+        Object panelBg = defaults.getOrDefault("Panel.background", UIManager.getColor("Panel.background"));
+        Object labelFg = defaults.getOrDefault("Label.foreground", UIManager.getColor("Label.foreground"));
+        if (panelBg != null) defaults.put("TextArea.background", panelBg);
+        if (labelFg != null) defaults.put("TextArea.foreground", labelFg);
+        return defaults;
+
+    }
 
+    /**
+     * Removes the colors set directly on the given component and its children, so they take the ones of the
+     * look and feel when their UI is updated. Colors from UIManager defaults are left for the new UI to replace.
+     *
+     * @param c Component to clear, ex: a window
+     */
+    public static void clearColors(Component c) {
+        if (c instanceof JComponent) {
+            if (c.isBackgroundSet() && !(c.getBackground() instanceof UIResource)) c.setBackground(null);
+            if (c.isForegroundSet() && !(c.getForeground() instanceof UIResource)) c.setForeground(null);
+        }
+
+        if (c instanceof Container container) {
+            for (Component child : container.getComponents()) clearColors(child);
+        }
     }
 
     /**
@@ -186,6 +241,15 @@ public final class Theme {
         return UIManager.getColor("Panel.background");
     }
 
+    /**
+     * Returns everything windows are currently colored by, so a window built earlier can tell whether it
+     * still matches, by comparing what this returned then.
+     */
+    public static List<Object> currentLook() {
+        return Arrays.asList(UIManager.getLookAndFeel().getClass(), Settings.isContrastEnabled(),
+                getTextColor(), getButtonTextColor(), getButtonColor(), getBgColor());
+    }
+
     /**
      * Reloads the colors from preferences.
      */
@@ -200,21 +264,57 @@ public final class Theme {
     }
 
     /**
-     * Loads the RGB values of the specified color's key from preferences.
-     * ex: for buttonTextColor the red value is stored in buttonTextRed,
-     * so this method iterates through the given "buttonText" key and adds
-     * "Red" "Green" and "Blue" at the end as need.
+     * Uses the given colors without saving them, to preview them while they are being chosen.
+     * {@link #reloadColors()} goes back to the saved colors.
+     *
+     * @param textRGB int[] of the text colors
+     * @param buttonTextRGB int[] of the button text colors
+     * @param buttonRGB int[] of the button colors
+     * @param bgRGB int[] of the background colors
+     */
+    public static void previewColors(int[] textRGB, int[] buttonTextRGB, int[] buttonRGB, int[] bgRGB) {
+
+        textColor = new Color(packRGB(textRGB));
+        buttonTextColor = new Color(packRGB(buttonTextRGB));
+        buttonColor = new Color(packRGB(buttonRGB));
+        bg = new Color(packRGB(bgRGB));
+        setColors();
+
+    }
+
+    /**
+     * Loads the specified color from preferences, where it is packed as an ARGB int.
+     * ex: buttonTextColor is stored in buttonTextColor. Colors saved before being packed
+     * are stored one channel per key, ex: buttonTextRed, so those are read if needed.
      *
      * @param colorKey String of component ex: "button"
-     * @param def Default value
+     * @param def Default value of each channel
      * @return The color value of that key from preferences.
      */
     private static Color loadColorOf(String colorKey, int def) {
 
+        int argb = Bedroom.userPrefs.getInt(colorKey + "Color", 0);
+        if (argb != 0) return new Color(argb, true);
+
         return new Color(Bedroom.userPrefs.getInt(colorKey + "Red", def),
                 Bedroom.userPrefs.getInt(colorKey + "Green", def),
                 Bedroom.userPrefs.getInt(colorKey + "Blue", def));
 
     }
 
+    /**
+     * Loads the RGB values of the specified color from preferences, like {@link #loadColorOf(String, int)}.
+     *
+     * @return int[] of the red, green and blue values
+     */
+    public static int[] loadRGBOf(String colorKey, int def) {
+        Color c = loadColorOf(colorKey, def);
+        return new int[]{c.getRed(), c.getGreen(), c.getBlue()};
+    }
+
+    /** Packs the given red, green and blue values into an opaque ARGB int */
+    public static int packRGB(int[] rgb) {
+        return 0xFF000000 | (rgb[0] & 0xFF) << 16 | (rgb[1] & 0xFF) << 8 | (rgb[2] & 0xFF);
+    }
+
 }